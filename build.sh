@@ -1,4 +1,49 @@
 #!/usr/bin/env bash
 
+# Builds libsecp256k1 (with the recovery module) and the JNI glue in src/main/c into secp256k1/.libs, then the jar.
+# The SDK falls back to pure Java when the native library is missing, so a failed native build is not fatal.
+
+set -e
+
+# The libsecp256k1 release the JNI glue is built and reviewed against. Set SECP256K1_COMMIT to the commit the tag is
+# expected to point at to have the checkout verified against it as well.
+SECP256K1_TAG=v0.4.1
+
+build_native() {
+    if [ ! -d secp256k1 ]; then
+        git clone --branch "$SECP256K1_TAG" --depth 1 https://github.com/bitcoin-core/secp256k1.git || return 1
+    fi
+
+    # An existing checkout must be the pinned release, not whatever was cloned before.
+    head=$(git -C secp256k1 rev-parse HEAD) || return 1
+    tagged=$(git -C secp256k1 rev-parse "$SECP256K1_TAG^{commit}") || return 1
+    if [ "$head" != "$tagged" ]; then
+        echo "secp256k1 is at $head, not $SECP256K1_TAG ($tagged); remove secp256k1/ to re-clone." >&2
+        return 1
+    fi
+    if [ -n "$SECP256K1_COMMIT" ] && [ "$head" != "$SECP256K1_COMMIT" ]; then
+        echo "secp256k1 $SECP256K1_TAG is $head, expected $SECP256K1_COMMIT." >&2
+        return 1
+    fi
+    (cd secp256k1 && ./autogen.sh && ./configure --enable-module-recovery --with-pic --disable-shared && make) || return 1
+
+    if [ -z "$JAVA_HOME" ]; then
+        JAVA_HOME=$(dirname "$(dirname "$(readlink -f "$(which javac)")")")
+    fi
+    if [ "$(uname)" = "Darwin" ]; then
+        platform=darwin
+        library=libdispatchsecp256k1.dylib
+    else
+        platform=linux
+        library=libdispatchsecp256k1.so
+    fi
+    cc -shared -fPIC -O2 \
+        -I"$JAVA_HOME/include" -I"$JAVA_HOME/include/$platform" -Isecp256k1/include \
+        src/main/c/dispatchlabs_crypto_NativeCryptoProvider.c secp256k1/.libs/libsecp256k1.a \
+        -o secp256k1/.libs/$library
+}
+
+build_native || echo "Native secp256k1 build failed; the SDK will use the pure Java crypto provider."
+
 rm -rf target
 mvn install
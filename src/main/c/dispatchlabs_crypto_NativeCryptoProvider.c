@@ -0,0 +1,87 @@
+/*
+ * JNI glue between dispatchlabs.crypto.NativeCryptoProvider and libsecp256k1 (built with the recovery module).
+ * See build.sh.
+ */
+#include <string.h>
+#include <jni.h>
+
+#include "secp256k1.h"
+#include "secp256k1_recovery.h"
+
+/*
+ * One context for the whole process. It is only mutated by randomize, which the Java side calls once while loading
+ * the class; every other call uses it read-only, which libsecp256k1 allows from any thread.
+ */
+static secp256k1_context *ctx = NULL;
+
+JNIEXPORT jint JNICALL JNI_OnLoad(JavaVM *vm, void *reserved) {
+    ctx = secp256k1_context_create(SECP256K1_CONTEXT_SIGN | SECP256K1_CONTEXT_VERIFY);
+    return ctx == NULL ? JNI_ERR : JNI_VERSION_1_6;
+}
+
+JNIEXPORT void JNICALL JNI_OnUnload(JavaVM *vm, void *reserved) {
+    if (ctx != NULL) {
+        secp256k1_context_destroy(ctx);
+        ctx = NULL;
+    }
+}
+
+JNIEXPORT jint JNICALL Java_dispatchlabs_crypto_NativeCryptoProvider_secp256k1ContextRandomize(JNIEnv *env, jclass clazz, jbyteArray seed) {
+    unsigned char seed32[32];
+    int result;
+
+    (*env)->GetByteArrayRegion(env, seed, 0, 32, (jbyte *) seed32);
+    if ((*env)->ExceptionCheck(env)) {
+        return 0;
+    }
+    result = secp256k1_context_randomize(ctx, seed32);
+    memset(seed32, 0, sizeof(seed32));
+    return result;
+}
+
+JNIEXPORT jint JNICALL Java_dispatchlabs_crypto_NativeCryptoProvider_secp256k1PublicKeyCreate(JNIEnv *env, jclass clazz, jbyteArray privateKey, jbyteArray publicKey) {
+    unsigned char seckey[32];
+    unsigned char output[65];
+    size_t outputLength = sizeof(output);
+    secp256k1_pubkey pubkey;
+    int result;
+
+    (*env)->GetByteArrayRegion(env, privateKey, 0, 32, (jbyte *) seckey);
+    if ((*env)->ExceptionCheck(env)) {
+        return 0;
+    }
+    result = secp256k1_ec_pubkey_create(ctx, &pubkey, seckey);
+    memset(seckey, 0, sizeof(seckey));
+    if (!result) {
+        return 0;
+    }
+    secp256k1_ec_pubkey_serialize(ctx, output, &outputLength, &pubkey, SECP256K1_EC_UNCOMPRESSED);
+    (*env)->SetByteArrayRegion(env, publicKey, 0, 65, (jbyte *) output);
+    return (*env)->ExceptionCheck(env) ? 0 : 1;
+}
+
+JNIEXPORT jint JNICALL Java_dispatchlabs_crypto_NativeCryptoProvider_secp256k1SignRecoverable(JNIEnv *env, jclass clazz, jbyteArray privateKey, jbyteArray hash, jbyteArray signature) {
+    unsigned char seckey[32];
+    unsigned char msg32[32];
+    unsigned char output[65];
+    secp256k1_ecdsa_recoverable_signature sig;
+    int recid;
+    int result;
+
+    (*env)->GetByteArrayRegion(env, privateKey, 0, 32, (jbyte *) seckey);
+    (*env)->GetByteArrayRegion(env, hash, 0, 32, (jbyte *) msg32);
+    if ((*env)->ExceptionCheck(env)) {
+        memset(seckey, 0, sizeof(seckey));
+        return 0;
+    }
+    /* The default nonce function is RFC 6979 with HMAC-SHA256, and the signature is always normalized to low s. */
+    result = secp256k1_ecdsa_sign_recoverable(ctx, &sig, msg32, seckey, NULL, NULL);
+    memset(seckey, 0, sizeof(seckey));
+    if (!result) {
+        return 0;
+    }
+    secp256k1_ecdsa_recoverable_signature_serialize_compact(ctx, output, &recid, &sig);
+    output[64] = (unsigned char) recid;
+    (*env)->SetByteArrayRegion(env, signature, 0, 65, (jbyte *) output);
+    return (*env)->ExceptionCheck(env) ? 0 : 1;
+}
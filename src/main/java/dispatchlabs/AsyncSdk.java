@@ -0,0 +1,445 @@
+package dispatchlabs;
+
+import dispatchlabs.crypto.Key;
+import dispatchlabs.services.DelegateDirectory;
+import dispatchlabs.services.DelegateRouter;
+import dispatchlabs.services.ReceiptCache;
+import dispatchlabs.states.Account;
+import dispatchlabs.states.Node;
+import dispatchlabs.states.Receipt;
+import dispatchlabs.states.Result;
+import dispatchlabs.states.Transaction;
+import dispatchlabs.utils.AJson;
+import dispatchlabs.utils.AsyncHttp;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link Sdk}. Every operation returns immediately with a {@link CompletableFuture}
+ * that completes on one of the I/O reactor threads, so a handful of threads can keep thousands of requests in
+ * flight. Callbacks attached to the returned futures should not block.
+ */
+public class AsyncSdk implements AutoCloseable {
+
+    /**
+     * Class level-declarations.
+     */
+    private final List<String> seedNodeIps;
+    private final SdkConfig sdkConfig;
+    private final AsyncHttp asyncHttp;
+    private final ReceiptCache receiptCache;
+    private DelegateDirectory delegateDirectory;
+    private DelegateRouter delegateRouter;
+
+    /**
+     * @param seedNodeIp
+     * @throws Exception
+     */
+    public AsyncSdk(String seedNodeIp) throws Exception {
+        this(seedNodeIp, new SdkConfig());
+    }
+
+    /**
+     * @param seedNodeIp
+     * @param sdkConfig
+     * @throws Exception
+     */
+    public AsyncSdk(String seedNodeIp, SdkConfig sdkConfig) throws Exception {
+        this(Collections.singletonList(seedNodeIp), sdkConfig);
+    }
+
+    /**
+     * @param seedNodeIps seed nodes tried in turn when refreshing the delegate list
+     * @param sdkConfig
+     * @throws Exception
+     */
+    public AsyncSdk(List<String> seedNodeIps, SdkConfig sdkConfig) throws Exception {
+        this.seedNodeIps = new ArrayList<>(seedNodeIps);
+        this.sdkConfig = sdkConfig;
+        this.asyncHttp = new AsyncHttp(sdkConfig.getMaxConnectionsTotal(), sdkConfig.getMaxConnectionsPerRoute(), sdkConfig.getIoThreadCount(), sdkConfig.getConnectTimeout(), sdkConfig.getSocketTimeout());
+        this.receiptCache = new ReceiptCache(sdkConfig.getReceiptCacheMaxBytes());
+    }
+
+    /**
+     * The cached delegate list from {@link #getDelegateDirectory()}. Completes immediately once the directory has
+     * loaded.
+     *
+     * @return
+     */
+    public CompletableFuture<List<Node>> getDelegatesAsync() {
+        return getDelegateDirectory().loadAsync();
+    }
+
+    /**
+     * Fetches the delegate list from one seed node, bypassing the cache.
+     *
+     * @param seedNodeIp
+     * @return
+     */
+    public CompletableFuture<List<Node>> getDelegatesAsync(String seedNodeIp) {
+        return asyncHttp.get("http://" + seedNodeIp + ":1975/v1/delegates", getHeaders(), inputStream -> Result.readList(inputStream, Node.class)).thenApply(Result::getData);
+    }
+
+    /**
+     * @param node
+     * @param privateKey
+     * @param from
+     * @param to
+     * @param tokens
+     * @return
+     */
+    public CompletableFuture<Receipt> transferTokensAsync(Node node, String privateKey, String from, String to, long tokens) {
+        return postTransaction(node, () -> Transaction.create(privateKey, from, to, Transaction.Type.TRANSFER_TOKENS, String.valueOf(tokens), "", "", "", System.currentTimeMillis()));
+    }
+
+    /**
+     * @param node
+     * @param key the sender's key; the sender address is derived from it
+     * @param to
+     * @param tokens
+     * @return
+     */
+    public CompletableFuture<Receipt> transferTokensAsync(Node node, Key key, String to, long tokens) {
+        return postTransaction(node, () -> Transaction.create(key, key.getAddress(), to, Transaction.Type.TRANSFER_TOKENS, String.valueOf(tokens), "", "", "", System.currentTimeMillis()));
+    }
+
+    /**
+     * The returned future completes with the submitted transaction once the node has accepted it, and fails with an
+     * {@link IllegalStateException} if the node rejected it; poll {@link #getStatusAsync(Node, String)} with its hash
+     * for the outcome.
+     *
+     * @param node
+     * @param fromAccount
+     * @param toAccount
+     * @param tokens
+     * @return
+     */
+    public CompletableFuture<Transaction> transferTokensAsync(Node node, Account fromAccount, Account toAccount, long tokens) {
+        return transferTokensResultAsync(node, fromAccount, toAccount, tokens).thenApply(AsyncSdk::getAccepted);
+    }
+
+    /**
+     * @param node
+     * @param fromAccount
+     * @param toAccount
+     * @param tokens
+     * @return the submitted transaction with the node's receipt
+     */
+    public CompletableFuture<Result<Transaction>> transferTokensResultAsync(Node node, Account fromAccount, Account toAccount, long tokens) {
+        Transaction transaction;
+        try {
+            transaction = createTransferTokensTransaction(fromAccount, toAccount, tokens);
+        } catch (Throwable t) {
+            CompletableFuture<Result<Transaction>> completableFuture = new CompletableFuture<>();
+            completableFuture.completeExceptionally(t);
+            return completableFuture;
+        }
+        return sendTransactionAsync(node, transaction).thenApply(receipt -> new Result<>(receipt, transaction));
+    }
+
+    /**
+     * Posts an already signed transaction.
+     *
+     * @param node
+     * @param transaction
+     * @return
+     */
+    public CompletableFuture<Receipt> sendTransactionAsync(Node node, Transaction transaction) {
+        return asyncHttp.post(getTransactionsUrl(node), getHeaders(), transaction, AsyncSdk::readReceipt);
+    }
+
+    /**
+     * @param node
+     * @param fromAccount
+     * @param code
+     * @return
+     */
+    public CompletableFuture<Receipt> deployContractAsync(Node node, Account fromAccount, String code) {
+        return postTransaction(node, () -> Transaction.create(fromAccount.getKey(), fromAccount.getAddress(), "", Transaction.Type.SMART_CONTRACT, "0", code, "", "", System.currentTimeMillis()));
+    }
+
+    /**
+     * @param node
+     * @param fromAccount
+     * @param contractAddress
+     * @param method
+     * @param params
+     * @return
+     */
+    public CompletableFuture<Receipt> executeContractAsync(Node node, Account fromAccount, String contractAddress, String method, String params) {
+        return postTransaction(node, () -> Transaction.create(fromAccount.getKey(), fromAccount.getAddress(), contractAddress, Transaction.Type.SMART_CONTRACT, "0", "", method, params, System.currentTimeMillis()));
+    }
+
+    /**
+     * @param node
+     * @param address
+     * @return
+     */
+    public CompletableFuture<Account> getAccountAsync(Node node, String address) {
+        return asyncHttp.get(getBaseUrl(node) + "/v1/accounts/" + address, getHeaders(), inputStream -> Result.read(inputStream, Account.class)).thenApply(Result::getData);
+    }
+
+    /**
+     * @param node
+     * @return
+     */
+    public CompletableFuture<List<Transaction>> getTransactionsAsync(Node node) {
+        return getTransactionList(getTransactionsUrl(node));
+    }
+
+    /**
+     * @param node
+     * @param address
+     * @return
+     */
+    public CompletableFuture<List<Transaction>> getTransactionsByFromAddressAsync(Node node, String address) {
+        return getTransactionList(getTransactionsUrl(node) + "/from/" + address);
+    }
+
+    /**
+     * @param node
+     * @param address
+     * @return
+     */
+    public CompletableFuture<List<Transaction>> getTransactionsByToAddressAsync(Node node, String address) {
+        return getTransactionList(getTransactionsUrl(node) + "/to/" + address);
+    }
+
+    /**
+     * @param node
+     * @param hash
+     * @return
+     */
+    public CompletableFuture<Receipt> getStatusAsync(Node node, String hash) {
+        Receipt receipt = receiptCache.get(hash);
+        return receipt != null ? CompletableFuture.completedFuture(receipt) : fetchStatus(node, hash);
+    }
+
+    /**
+     * Terminal receipts are served from here before any request is made.
+     *
+     * @return
+     */
+    public ReceiptCache getReceiptCache() {
+        return receiptCache;
+    }
+
+    /**
+     * The delegate directory, started on first use. Its refresh thread waits on the non-blocking client, which is
+     * fine since that thread does nothing else.
+     *
+     * @return
+     */
+    public synchronized DelegateDirectory getDelegateDirectory() {
+        if (delegateDirectory == null) {
+            delegateDirectory = new DelegateDirectory(seedNodeIps, seedNodeIp -> getDelegatesAsync(seedNodeIp).get(), sdkConfig.getDelegateRefreshInterval()).start();
+        }
+        return delegateDirectory;
+    }
+
+    /**
+     * The router used by the node-less overloads below. It follows the delegate directory as it refreshes.
+     *
+     * @return
+     */
+    public CompletableFuture<DelegateRouter> getDelegateRouter() {
+        DelegateRouter delegateRouter;
+        synchronized (this) {
+            if (this.delegateRouter == null) {
+                this.delegateRouter = new DelegateRouter(Collections.emptyList(), sdkConfig.getDelegateEjectionTime(), sdkConfig.getMaxDelegateAttempts());
+                getDelegateDirectory().addListener(this.delegateRouter::setNodes);
+            }
+            delegateRouter = this.delegateRouter;
+        }
+        if (!delegateRouter.getNodes().isEmpty()) {
+            return CompletableFuture.completedFuture(delegateRouter);
+        }
+        return getDelegatesAsync().thenApply(nodes -> {
+            delegateRouter.setNodes(nodes);
+            return delegateRouter;
+        });
+    }
+
+    /**
+     * Routed variant of {@link #transferTokensAsync(Node, Account, Account, long)}.
+     *
+     * @param fromAccount
+     * @param toAccount
+     * @param tokens
+     * @return
+     */
+    public CompletableFuture<Transaction> transferTokensAsync(Account fromAccount, Account toAccount, long tokens) {
+        return transferTokensResultAsync(fromAccount, toAccount, tokens).thenApply(AsyncSdk::getAccepted);
+    }
+
+    /**
+     * Routed variant of {@link #transferTokensResultAsync(Node, Account, Account, long)}.
+     *
+     * @param fromAccount
+     * @param toAccount
+     * @param tokens
+     * @return
+     */
+    public CompletableFuture<Result<Transaction>> transferTokensResultAsync(Account fromAccount, Account toAccount, long tokens) {
+        Transaction transaction;
+        try {
+            // Sign once, so a retry on another delegate resends the same transaction instead of creating a second payment.
+            transaction = createTransferTokensTransaction(fromAccount, toAccount, tokens);
+        } catch (Throwable t) {
+            CompletableFuture<Result<Transaction>> completableFuture = new CompletableFuture<>();
+            completableFuture.completeExceptionally(t);
+            return completableFuture;
+        }
+        return getDelegateRouter().thenCompose(router -> router.sendAsync(node -> sendTransactionAsync(node, transaction))).thenApply(receipt -> new Result<>(receipt, transaction));
+    }
+
+    /**
+     * Routed variant of {@link #getAccountAsync(Node, String)}.
+     *
+     * @param address
+     * @return
+     */
+    public CompletableFuture<Account> getAccountAsync(String address) {
+        return getDelegateRouter().thenCompose(router -> router.executeAsync(node -> getAccountAsync(node, address)));
+    }
+
+    /**
+     * Routed variant of {@link #getTransactionsAsync(Node)}.
+     *
+     * @return
+     */
+    public CompletableFuture<List<Transaction>> getTransactionsAsync() {
+        return getDelegateRouter().thenCompose(router -> router.executeAsync(this::getTransactionsAsync));
+    }
+
+    /**
+     * Routed variant of {@link #getStatusAsync(Node, String)}.
+     *
+     * @param hash
+     * @return
+     */
+    public CompletableFuture<Receipt> getStatusAsync(String hash) {
+        Receipt receipt = receiptCache.get(hash);
+        if (receipt != null) {
+            return CompletableFuture.completedFuture(receipt);
+        }
+        return getDelegateRouter().thenCompose(router -> router.executeAsync(node -> fetchStatus(node, hash)));
+    }
+
+    /**
+     * Asks the node, caching the receipt if it is terminal.
+     *
+     * @param node
+     * @param hash
+     * @return
+     */
+    private CompletableFuture<Receipt> fetchStatus(Node node, String hash) {
+        return asyncHttp.get(getTransactionsUrl(node) + "/" + hash, getHeaders(), AsyncSdk::readReceipt).thenApply(receipt -> receiptCache.put(hash, receipt));
+    }
+
+    /**
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (delegateDirectory != null) {
+                delegateDirectory.close();
+            }
+        }
+        asyncHttp.close();
+    }
+
+    /**
+     * @param url
+     * @return
+     */
+    private CompletableFuture<List<Transaction>> getTransactionList(String url) {
+        return asyncHttp.get(url, getHeaders(), inputStream -> Result.readList(inputStream, Transaction.class)).thenApply(Result::getData);
+    }
+
+    /**
+     * Signs on the calling thread, then posts without blocking.
+     *
+     * @param node
+     * @param transactionCallable
+     * @return
+     */
+    private CompletableFuture<Receipt> postTransaction(Node node, Callable<Transaction> transactionCallable) {
+        try {
+            return asyncHttp.post(getTransactionsUrl(node), getHeaders(), transactionCallable.call(), AsyncSdk::readReceipt);
+        } catch (Throwable t) {
+            CompletableFuture<Receipt> completableFuture = new CompletableFuture<>();
+            completableFuture.completeExceptionally(t);
+            return completableFuture;
+        }
+    }
+
+    /**
+     * @param fromAccount
+     * @param toAccount
+     * @param tokens
+     * @return
+     * @throws Exception
+     */
+    private static Transaction createTransferTokensTransaction(Account fromAccount, Account toAccount, long tokens) throws Exception {
+        // Accounts may carry addresses the node accepts but that are not 20 bytes, so they go through the hex path.
+        return Transaction.create(fromAccount.getKey(), fromAccount.getAddress(), toAccount.getAddress(), Transaction.Type.TRANSFER_TOKENS, String.valueOf(tokens), "", "", "", System.currentTimeMillis());
+    }
+
+    /**
+     * @param result
+     * @return the transaction if the node accepted it
+     * @throws IllegalStateException if the node rejected it
+     */
+    private static Transaction getAccepted(Result<Transaction> result) {
+        Receipt receipt = result.getReceipt();
+        String status = receipt == null ? null : receipt.getStatus();
+        if (!Receipt.Status.PENDING.equals(status) && !Receipt.Status.OK.equals(status)) {
+            throw new IllegalStateException("Transaction " + result.getData().getHash() + " was not accepted: " + status + (receipt != null && receipt.getHumanReadableStatus() != null ? " (" + receipt.getHumanReadableStatus() + ")" : ""));
+        }
+        return result.getData();
+    }
+
+    /**
+     * @param inputStream
+     * @return
+     * @throws Exception
+     */
+    private static Receipt readReceipt(InputStream inputStream) throws Exception {
+        return (Receipt) AJson.deserialize(Receipt.class, inputStream);
+    }
+
+    /**
+     * @param node
+     * @return
+     */
+    private String getBaseUrl(Node node) {
+        return "http://" + node.getHttpEndpoint().getHost() + ":" + node.getHttpEndpoint().getPort();
+    }
+
+    /**
+     * @param node
+     * @return
+     */
+    private String getTransactionsUrl(Node node) {
+        return getBaseUrl(node) + "/v1/transactions";
+    }
+
+    /**
+     * @return
+     */
+    private Map<String, String> getHeaders() {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Type", "application/json");
+        return headers;
+    }
+}
@@ -1,53 +1,132 @@
 package dispatchlabs;
 
+import dispatchlabs.crypto.Key;
+import dispatchlabs.services.AccountCache;
+import dispatchlabs.services.DelegateDirectory;
+import dispatchlabs.services.DelegateRouter;
+import dispatchlabs.services.ReceiptCache;
 import dispatchlabs.states.Account;
+import dispatchlabs.states.Address;
+import dispatchlabs.states.Hash32;
 import dispatchlabs.states.Receipt;
 import dispatchlabs.states.Node;
+import dispatchlabs.states.Result;
 import dispatchlabs.states.Transaction;
 import dispatchlabs.utils.AJson;
 import dispatchlabs.utils.Http;
-import org.json.JSONObject;
+import dispatchlabs.utils.SingleFlight;
+import dispatchlabs.utils.Threads;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
 
 
 /**
- *
+ * Instances are thread-safe and meant to be shared: every call returns its own receipt, either as the returned
+ * {@link Receipt} or inside a {@link Result}, so concurrent callers never see each other's responses. Identical reads
+ * of accounts and transaction lists that are in flight at the same time share one request and its decoded result,
+ * which callers must therefore treat as read-only.
  */
-public class Sdk {
+public class Sdk implements AutoCloseable {
 
     /**
      * Class level-declarations.
      */
-    private String seedNodeIp;
-    private Receipt receipt;
+    private final List<String> seedNodeIps;
+    private final ThreadLocal<Receipt> lastReceipt = new ThreadLocal<>();
+    private final SdkConfig sdkConfig;
+    private final Http http;
+    private final ReceiptCache receiptCache;
+    private final AccountCache accountCache;
+    private final SingleFlight<String, Result<?>> reads = new SingleFlight<>(Sdk::copy);
+    private volatile Receipt delegatesReceipt;
+    private DelegateDirectory delegateDirectory;
+    private DelegateRouter delegateRouter;
 
     /**
      * @throws Exception
      */
     public Sdk(String seedNodeIp) throws Exception {
-        this.seedNodeIp = seedNodeIp;
+        this(seedNodeIp, new SdkConfig());
     }
 
     /**
+     * @param seedNodeIp
+     * @param sdkConfig
+     * @throws Exception
+     */
+    public Sdk(String seedNodeIp, SdkConfig sdkConfig) throws Exception {
+        this(Collections.singletonList(seedNodeIp), sdkConfig);
+    }
+
+    /**
+     * @param seedNodeIps seed nodes tried in turn when refreshing the delegate list
+     * @param sdkConfig
+     * @throws Exception
+     */
+    public Sdk(List<String> seedNodeIps, SdkConfig sdkConfig) throws Exception {
+        this.seedNodeIps = new ArrayList<>(seedNodeIps);
+        this.sdkConfig = sdkConfig;
+        this.receiptCache = new ReceiptCache(sdkConfig.getReceiptCacheMaxBytes());
+        this.accountCache = new AccountCache(sdkConfig.getAccountCacheTtl(), sdkConfig.getAccountCacheMaxSize());
+        if (sdkConfig.isVirtualThreads()) {
+            this.http = Threads.newVirtualThreadHttp(sdkConfig.getMaxConnectionsTotal(), sdkConfig.getMaxConnectionsPerRoute(), sdkConfig.getIdleConnectionTimeout(), sdkConfig.getConnectTimeout(), sdkConfig.getSocketTimeout());
+        } else {
+            this.http = new Http(sdkConfig.getMaxConnectionsTotal(), sdkConfig.getMaxConnectionsPerRoute(), sdkConfig.getIdleConnectionTimeout(), sdkConfig.getConnectTimeout(), sdkConfig.getSocketTimeout());
+        }
+    }
+
+    /**
+     * The receipt of the last call made by the calling thread through one of the methods that do not return it.
+     * Prefer the methods returning {@link Receipt} or {@link Result}.
+     *
      * @return
      */
     public Receipt getReceipt() {
-        return receipt;
+        return lastReceipt.get();
     }
 
     /**
+     * The cached delegate list from {@link #getDelegateDirectory()}. Only the first call waits for the seed nodes.
+     * {@link #getReceipt()} then returns the receipt of the seed node answer the list came from, which may be older
+     * than this call.
+     *
      * @return
-     * @throws Exception
+     * @throws Exception if no seed node returned any delegates
      */
     public List<Node> getDelegates() throws Exception {
-        try (Http http = new Http()) {
-            JSONObject jsonObject = new JSONObject(http.get("http://" + seedNodeIp + ":1975/v1/delegates", getHeaders()));
-            receipt = (Receipt) AJson.deserialize(Receipt.class, jsonObject.toString());
-            return AJson.deserializeList(Node.class, jsonObject.get("data").toString());
-        }
+        List<Node> nodes = getDelegateDirectory().load();
+        remember(delegatesReceipt);
+        return nodes;
+    }
+
+    /**
+     * Fetches the delegate list from one seed node, bypassing the cache.
+     *
+     * @param seedNodeIp
+     * @return
+     * @throws Exception
+     */
+    public List<Node> getDelegates(String seedNodeIp) throws Exception {
+        return remember(getDelegatesResult(seedNodeIp));
+    }
+
+    /**
+     * Fetches the delegate list from one seed node, bypassing the cache.
+     *
+     * @param seedNodeIp
+     * @return the data with the node's receipt
+     * @throws Exception
+     */
+    public Result<List<Node>> getDelegatesResult(String seedNodeIp) throws Exception {
+        return http.get("http://" + seedNodeIp + ":1975/v1/delegates", getHeaders(), inputStream -> Result.readList(inputStream, Node.class));
     }
 
     /**
@@ -68,12 +147,21 @@ public class Sdk {
      * @throws Exception
      */
     public Receipt transferTokens(Node node, String privateKey, String from, String to, long tokens) throws Exception {
-        try (Http http = new Http()) {
-            Transaction transaction = Transaction.create(privateKey, from, to, Transaction.Type.TRANSFER_TOKENS, String.valueOf(tokens), "", "", "", System.currentTimeMillis());
-            JSONObject jsonObject = new JSONObject(http.post("http://" + node.getHttpEndpoint().getHost() + ":" + String.valueOf(node.getHttpEndpoint().getPort()) + "/v1/transactions", getHeaders(), transaction.toString()));
-            receipt = (Receipt) AJson.deserialize(Receipt.class, jsonObject.toString());
-            return receipt;
-        }
+        Transaction transaction = Transaction.create(privateKey, from, to, Transaction.Type.TRANSFER_TOKENS, String.valueOf(tokens), "", "", "", System.currentTimeMillis());
+        return remember(sendTransaction(node, transaction));
+    }
+
+    /**
+     * @param node
+     * @param key the sender's key; the sender address is derived from it
+     * @param to
+     * @param tokens
+     * @return
+     * @throws Exception
+     */
+    public Receipt transferTokens(Node node, Key key, String to, long tokens) throws Exception {
+        Transaction transaction = Transaction.create(key, key.getAddress(), to, Transaction.Type.TRANSFER_TOKENS, String.valueOf(tokens), "", "", "", System.currentTimeMillis());
+        return remember(sendTransaction(node, transaction));
     }
 
     /**
@@ -85,11 +173,38 @@ public class Sdk {
      * @throws Exception
      */
     public Transaction transferTokens(Node node, Account fromAccount, Account toAccount, long tokens) throws Exception {
-        try (Http http = new Http()) {
-            Transaction transaction = Transaction.create(fromAccount.getPrivateKey(), fromAccount.getAddress(), toAccount.getAddress(), Transaction.Type.TRANSFER_TOKENS, String.valueOf(tokens), "", "", "", System.currentTimeMillis());
-            JSONObject jsonObject = new JSONObject(http.post("http://" + node.getHttpEndpoint().getHost()  + ":" + String.valueOf(node.getHttpEndpoint().getPort()) + "/v1/transactions", getHeaders(), transaction.toString()));
-            //receipt = (Receipt) AJson.deserialize(Receipt.class, jsonObject.toString());
-            return transaction;
+        Result<Transaction> result = transferTokensResult(node, fromAccount, toAccount, tokens);
+        remember(result.getReceipt());
+        return result.getData();
+    }
+
+    /**
+     * @param node
+     * @param fromAccount
+     * @param toAccount
+     * @param tokens
+     * @return the submitted transaction with the node's receipt
+     * @throws Exception
+     */
+    public Result<Transaction> transferTokensResult(Node node, Account fromAccount, Account toAccount, long tokens) throws Exception {
+        Transaction transaction = createTransferTokensTransaction(fromAccount, toAccount, tokens);
+        return new Result<>(sendTransaction(node, transaction), transaction);
+    }
+
+    /**
+     * Posts an already signed transaction.
+     *
+     * @param node
+     * @param transaction
+     * @return
+     * @throws Exception
+     */
+    public Receipt sendTransaction(Node node, Transaction transaction) throws Exception {
+        try {
+            return http.post("http://" + node.getHttpEndpoint().getHost() + ":" + String.valueOf(node.getHttpEndpoint().getPort()) + "/v1/transactions", getHeaders(), transaction, Sdk::readReceipt);
+        } finally {
+            // Also when the post failed: the node may have accepted the transaction before the connection broke.
+            accountCache.submitted(transaction);
         }
     }
 
@@ -111,21 +226,7 @@ public class Sdk {
     	}'
      */
     public Receipt deployContract(Node node, Account fromAccount, String code) throws Exception {
-        try (Http http = new Http()) {
-            Transaction transaction = Transaction.create(
-                    fromAccount.getPrivateKey(),
-                    fromAccount.getAddress(),
-                    "",
-                    Transaction.Type.SMART_CONTRACT,
-                    "0",
-                    code,
-                    "",
-                    "",
-                    System.currentTimeMillis());
-            JSONObject jsonObject = new JSONObject(http.post("http://" + node.getHttpEndpoint().getHost() + ":" + String.valueOf(node.getHttpEndpoint().getPort()) + "/v1/transactions", getHeaders(), transaction.toString()));
-            receipt = (Receipt) AJson.deserialize(Receipt.class, jsonObject.toString());
-            return receipt;
-        }
+        return remember(sendTransaction(node, createDeployContractTransaction(fromAccount, code)));
     }
     
     /*
@@ -146,21 +247,7 @@ public class Sdk {
 	}'
      */
     public Receipt executeContract(Node node, Account fromAccount, String contractAddress, String method, String params) throws Exception {
-        try (Http http = new Http()) {
-            Transaction transaction = Transaction.create(
-                    fromAccount.getPrivateKey(),
-                    fromAccount.getAddress(),
-                    contractAddress,
-                    Transaction.Type.SMART_CONTRACT,
-                    "0",
-                    "",
-                    method,
-                    params,
-                    System.currentTimeMillis());
-            JSONObject jsonObject = new JSONObject(http.post("http://" + node.getHttpEndpoint().getHost() + ":" + String.valueOf(node.getHttpEndpoint().getPort()) + "/v1/transactions", getHeaders(), transaction.toString()));
-            receipt = (Receipt) AJson.deserialize(Receipt.class, jsonObject.toString());
-            return receipt;
-        }
+        return remember(sendTransaction(node, createExecuteContractTransaction(fromAccount, contractAddress, method, params)));
     }
 
     /**
@@ -170,14 +257,18 @@ public class Sdk {
      * @throws Exception
      */
     public Account getAccount(Node node, String address) throws Exception {
-        try (Http http = new Http()) {
-            JSONObject jsonObject = new JSONObject(http.get("http://" + node.getHttpEndpoint().getHost() + ":" + String.valueOf(node.getHttpEndpoint().getPort()) + "/v1/accounts/" + address, getHeaders()));
-            receipt = (Receipt) AJson.deserialize(Receipt.class, jsonObject.toString());
-            if (receipt.isOk()) {
-                return (Account) AJson.deserialize(Account.class, jsonObject.get("data").toString());
-            }
-            return null;
-        }
+        return remember(getAccountResult(node, address));
+    }
+
+    /**
+     * @param node
+     * @param address
+     * @return the data with the node's receipt
+     * @throws Exception
+     */
+    public Result<Account> getAccountResult(Node node, String address) throws Exception {
+        Result<Account> result = accountCache.get(address);
+        return result != null ? result : fetchAccount(node, address);
     }
 
     /**
@@ -186,14 +277,16 @@ public class Sdk {
      * @throws Exception
      */
     public List<Transaction> getTransactions(Node node) throws Exception {
-        try (Http http = new Http()) {
-            JSONObject jsonObject = new JSONObject(http.get("http://" + node.getHttpEndpoint().getHost() + ":" + String.valueOf(node.getHttpEndpoint().getPort()) + "/v1/transactions", getHeaders()));
-            receipt = (Receipt) AJson.deserialize(Receipt.class, jsonObject.toString());
-            if (receipt.isOk()) {
-                return AJson.deserializeList(Transaction.class, jsonObject.get("data").toString());
-            }
-            return null;
-        }
+        return remember(getTransactionsResult(node));
+    }
+
+    /**
+     * @param node
+     * @return the data with the node's receipt
+     * @throws Exception
+     */
+    public Result<List<Transaction>> getTransactionsResult(Node node) throws Exception {
+        return read("http://" + node.getHttpEndpoint().getHost() + ":" + String.valueOf(node.getHttpEndpoint().getPort()) + "/v1/transactions", inputStream -> Result.readList(inputStream, Transaction.class));
     }
 
     /**
@@ -203,14 +296,17 @@ public class Sdk {
      * @throws Exception
      */
     public List<Transaction> getTransactionsByFromAddress(Node node, String address) throws Exception {
-        try (Http http = new Http()) {
-            JSONObject jsonObject = new JSONObject(http.get("http://" + node.getHttpEndpoint().getHost() + ":" + String.valueOf(node.getHttpEndpoint().getPort()) + "/v1/transactions/from/" + address, getHeaders()));
-            receipt = (Receipt) AJson.deserialize(Receipt.class, jsonObject.toString());
-            if (receipt.isOk()) {
-                return AJson.deserializeList(Transaction.class, jsonObject.get("data").toString());
-            }
-            return null;
-        }
+        return remember(getTransactionsByFromAddressResult(node, address));
+    }
+
+    /**
+     * @param node
+     * @param address
+     * @return the data with the node's receipt
+     * @throws Exception
+     */
+    public Result<List<Transaction>> getTransactionsByFromAddressResult(Node node, String address) throws Exception {
+        return read("http://" + node.getHttpEndpoint().getHost() + ":" + String.valueOf(node.getHttpEndpoint().getPort()) + "/v1/transactions/from/" + address, inputStream -> Result.readList(inputStream, Transaction.class));
     }
 
     /**
@@ -220,14 +316,68 @@ public class Sdk {
      * @throws Exception
      */
     public List<Transaction> getTransactionsByToAddress(Node node, String address) throws Exception {
-        try (Http http = new Http()) {
-            JSONObject jsonObject = new JSONObject(http.get("http://" + node.getHttpEndpoint().getHost() + ":" + String.valueOf(node.getHttpEndpoint().getPort()) + "/v1/transactions/to/" + address, getHeaders()));
-            receipt = (Receipt) AJson.deserialize(Receipt.class, jsonObject.toString());
-            if (receipt.isOk()) {
-                return AJson.deserializeList(Transaction.class, jsonObject.get("data").toString());
-            }
-            return null;
-        }
+        return remember(getTransactionsByToAddressResult(node, address));
+    }
+
+    /**
+     * @param node
+     * @param address
+     * @return the data with the node's receipt
+     * @throws Exception
+     */
+    public Result<List<Transaction>> getTransactionsByToAddressResult(Node node, String address) throws Exception {
+        return read("http://" + node.getHttpEndpoint().getHost() + ":" + String.valueOf(node.getHttpEndpoint().getPort()) + "/v1/transactions/to/" + address, inputStream -> Result.readList(inputStream, Transaction.class));
+    }
+
+    /**
+     * Lazy variant of {@link #getTransactions(Node)}. Transactions are decoded one at a time as the stream is
+     * consumed, so memory stays flat however long the listing is. The stream holds the response open: close it, for
+     * instance with try-with-resources, when stopping early. Empty when the receipt, see {@link #getReceipt()}, is not
+     * OK.
+     *
+     * @param node
+     * @return
+     * @throws Exception
+     */
+    public Stream<Transaction> streamTransactions(Node node) throws Exception {
+        return remember(streamTransactionsResult(node), Stream.empty());
+    }
+
+    /**
+     * Lazy variant of {@link #getTransactionsByFromAddress(Node, String)}; see {@link #streamTransactions(Node)}.
+     *
+     * @param node
+     * @param address
+     * @return
+     * @throws Exception
+     */
+    public Stream<Transaction> streamTransactionsByFromAddress(Node node, String address) throws Exception {
+        return remember(streamTransactionsByFromAddressResult(node, address), Stream.empty());
+    }
+
+    /**
+     * Lazy variant of {@link #getTransactionsByToAddress(Node, String)}; see {@link #streamTransactions(Node)}.
+     *
+     * @param node
+     * @param address
+     * @return
+     * @throws Exception
+     */
+    public Stream<Transaction> streamTransactionsByToAddress(Node node, String address) throws Exception {
+        return remember(streamTransactionsByToAddressResult(node, address), Stream.empty());
+    }
+
+    /**
+     * Like {@link #streamTransactionsByToAddress(Node, String)}, but tells a failed request from an empty listing: the
+     * data is null unless the receipt is OK, and must be closed otherwise.
+     *
+     * @param node
+     * @param address
+     * @return the stream with the node's receipt
+     * @throws Exception
+     */
+    public Result<Stream<Transaction>> streamTransactionsByToAddressResult(Node node, String address) throws Exception {
+        return streamTransactionsResult("http://" + node.getHttpEndpoint().getHost() + ":" + String.valueOf(node.getHttpEndpoint().getPort()) + "/v1/transactions/to/" + address);
     }
 
     /**
@@ -235,7 +385,7 @@ public class Sdk {
      * @throws Exception
      */
     public Receipt getLastStatus(Node node, String hash) throws Exception {
-        if (receipt == null) {
+        if (lastReceipt.get() == null) {
             return null;
         }
         return getStatus(node, hash);
@@ -246,12 +396,352 @@ public class Sdk {
      * @throws Exception
      */
     public Receipt getStatus(Node node, String hash) throws Exception {
-        try (Http http = new Http()) {
-            // TODO: receipt.getNodeIp() is returning null. Plus, port 1975 shouldn't be hardcoded here.
-            JSONObject jsonObject = new JSONObject(http.get("http://" + node.getHttpEndpoint().getHost() + ":" + node.getHttpEndpoint().getPort() + "/v1/transactions/" + hash, getHeaders()));
-            this.receipt = (Receipt) AJson.deserialize(Receipt.class, jsonObject.toString());
-            return this.receipt;
+        Receipt receipt = receiptCache.get(hash);
+        return remember(receipt != null ? receipt : fetchStatus(node, hash));
+    }
+
+    /**
+     * Terminal receipts are served from here before any request is made.
+     *
+     * @return
+     */
+    public ReceiptCache getReceiptCache() {
+        return receiptCache;
+    }
+
+    /**
+     * Account lookups are served from here while fresh.
+     *
+     * @return
+     */
+    public AccountCache getAccountCache() {
+        return accountCache;
+    }
+
+    /**
+     * The delegate directory, started on first use and refreshed in the background every
+     * {@link SdkConfig#getDelegateRefreshInterval()} milliseconds.
+     *
+     * @return
+     */
+    public synchronized DelegateDirectory getDelegateDirectory() {
+        if (delegateDirectory == null) {
+            delegateDirectory = new DelegateDirectory(seedNodeIps, seedNodeIp -> {
+                Result<List<Node>> result = getDelegatesResult(seedNodeIp);
+                if (result.getData() != null && !result.getData().isEmpty()) {
+                    delegatesReceipt = result.getReceipt();
+                }
+                return result.getData();
+            }, sdkConfig.getDelegateRefreshInterval()).start();
+        }
+        return delegateDirectory;
+    }
+
+    /**
+     * The router used by the node-less overloads below. It follows the delegate directory as it refreshes.
+     *
+     * @return
+     * @throws Exception
+     */
+    public DelegateRouter getDelegateRouter() throws Exception {
+        DelegateRouter delegateRouter;
+        synchronized (this) {
+            if (this.delegateRouter == null) {
+                this.delegateRouter = new DelegateRouter(Collections.emptyList(), sdkConfig.getDelegateEjectionTime(), sdkConfig.getMaxDelegateAttempts());
+                getDelegateDirectory().addListener(this.delegateRouter::setNodes);
+            }
+            delegateRouter = this.delegateRouter;
+        }
+        if (delegateRouter.getNodes().isEmpty()) {
+            delegateRouter.setNodes(getDelegates());
         }
+        return delegateRouter;
+    }
+
+    /**
+     * Routed variant of {@link #transferTokens(Node, Account, Account, long)}.
+     *
+     * @param fromAccount
+     * @param toAccount
+     * @param tokens
+     * @return
+     * @throws Exception
+     */
+    public Transaction transferTokens(Account fromAccount, Account toAccount, long tokens) throws Exception {
+        Result<Transaction> result = transferTokensResult(fromAccount, toAccount, tokens);
+        remember(result.getReceipt());
+        return result.getData();
+    }
+
+    /**
+     * Routed variant of {@link #deployContract(Node, Account, String)}.
+     *
+     * @param fromAccount
+     * @param code
+     * @return
+     * @throws Exception
+     */
+    public Receipt deployContract(Account fromAccount, String code) throws Exception {
+        return remember(route(createDeployContractTransaction(fromAccount, code)));
+    }
+
+    /**
+     * Routed variant of {@link #executeContract(Node, Account, String, String, String)}.
+     *
+     * @param fromAccount
+     * @param contractAddress
+     * @param method
+     * @param params
+     * @return
+     * @throws Exception
+     */
+    public Receipt executeContract(Account fromAccount, String contractAddress, String method, String params) throws Exception {
+        return remember(route(createExecuteContractTransaction(fromAccount, contractAddress, method, params)));
+    }
+
+    /**
+     * Routed variant of {@link #getAccount(Node, String)}.
+     *
+     * @param address
+     * @return
+     * @throws Exception
+     */
+    public Account getAccount(String address) throws Exception {
+        return remember(getAccountResult(address));
+    }
+
+    /**
+     * Routed variant of {@link #getTransactions(Node)}.
+     *
+     * @return
+     * @throws Exception
+     */
+    public List<Transaction> getTransactions() throws Exception {
+        return remember(getTransactionsResult());
+    }
+
+    /**
+     * Routed variant of {@link #getTransactionsByFromAddress(Node, String)}.
+     *
+     * @param address
+     * @return
+     * @throws Exception
+     */
+    public List<Transaction> getTransactionsByFromAddress(String address) throws Exception {
+        return remember(getTransactionsByFromAddressResult(address));
+    }
+
+    /**
+     * Routed variant of {@link #getTransactionsByToAddress(Node, String)}.
+     *
+     * @param address
+     * @return
+     * @throws Exception
+     */
+    public List<Transaction> getTransactionsByToAddress(String address) throws Exception {
+        return remember(getTransactionsByToAddressResult(address));
+    }
+
+    /**
+     * Routed variant of {@link #streamTransactions(Node)}. Only opening the stream is retried on another delegate.
+     *
+     * @return
+     * @throws Exception
+     */
+    public Stream<Transaction> streamTransactions() throws Exception {
+        return remember(getDelegateRouter().execute(this::streamTransactionsResult), Stream.empty());
+    }
+
+    /**
+     * Routed variant of {@link #streamTransactionsByFromAddress(Node, String)}.
+     *
+     * @param address
+     * @return
+     * @throws Exception
+     */
+    public Stream<Transaction> streamTransactionsByFromAddress(String address) throws Exception {
+        return remember(getDelegateRouter().execute(node -> streamTransactionsByFromAddressResult(node, address)), Stream.empty());
+    }
+
+    /**
+     * Routed variant of {@link #streamTransactionsByToAddress(Node, String)}.
+     *
+     * @param address
+     * @return
+     * @throws Exception
+     */
+    public Stream<Transaction> streamTransactionsByToAddress(String address) throws Exception {
+        return remember(streamTransactionsByToAddressResult(address), Stream.empty());
+    }
+
+    /**
+     * Routed variant of {@link #streamTransactionsByToAddressResult(Node, String)}.
+     *
+     * @param address
+     * @return
+     * @throws Exception
+     */
+    public Result<Stream<Transaction>> streamTransactionsByToAddressResult(String address) throws Exception {
+        return getDelegateRouter().execute(node -> streamTransactionsByToAddressResult(node, address));
+    }
+
+    /**
+     * Routed variant of {@link #getStatus(Node, String)}.
+     *
+     * @param hash
+     * @return
+     * @throws Exception
+     */
+    public Receipt getStatus(String hash) throws Exception {
+        Receipt receipt = receiptCache.get(hash);
+        return remember(receipt != null ? receipt : getDelegateRouter().execute(node -> fetchStatus(node, hash)));
+    }
+
+    /**
+     * Routed variant of {@link #transferTokensResult(Node, Account, Account, long)}.
+     *
+     * @param fromAccount
+     * @param toAccount
+     * @param tokens
+     * @return
+     * @throws Exception
+     */
+    public Result<Transaction> transferTokensResult(Account fromAccount, Account toAccount, long tokens) throws Exception {
+        Transaction transaction = createTransferTokensTransaction(fromAccount, toAccount, tokens);
+        return new Result<>(route(transaction), transaction);
+    }
+
+    /**
+     * Routed variant of {@link #getAccountResult(Node, String)}.
+     *
+     * @param address
+     * @return
+     * @throws Exception
+     */
+    public Result<Account> getAccountResult(String address) throws Exception {
+        Result<Account> result = accountCache.get(address);
+        return result != null ? result : getDelegateRouter().execute(node -> fetchAccount(node, address));
+    }
+
+    /**
+     * Routed variant of {@link #getTransactionsResult(Node)}.
+     *
+     * @return
+     * @throws Exception
+     */
+    public Result<List<Transaction>> getTransactionsResult() throws Exception {
+        return getDelegateRouter().execute(this::getTransactionsResult);
+    }
+
+    /**
+     * Routed variant of {@link #getTransactionsByFromAddressResult(Node, String)}.
+     *
+     * @param address
+     * @return
+     * @throws Exception
+     */
+    public Result<List<Transaction>> getTransactionsByFromAddressResult(String address) throws Exception {
+        return getDelegateRouter().execute(node -> getTransactionsByFromAddressResult(node, address));
+    }
+
+    /**
+     * Routed variant of {@link #getTransactionsByToAddressResult(Node, String)}.
+     *
+     * @param address
+     * @return
+     * @throws Exception
+     */
+    public Result<List<Transaction>> getTransactionsByToAddressResult(String address) throws Exception {
+        return getDelegateRouter().execute(node -> getTransactionsByToAddressResult(node, address));
+    }
+
+    /**
+     * @param node
+     * @param key the sender's key; the sender address is derived from it
+     * @param to
+     * @param tokens
+     * @return
+     * @throws Exception
+     */
+    public Receipt transferTokens(Node node, Key key, Address to, long tokens) throws Exception {
+        Transaction transaction = Transaction.create(key, key.getAddressValue(), to, Transaction.Type.TRANSFER_TOKENS, String.valueOf(tokens), "", "", "", System.currentTimeMillis());
+        return remember(sendTransaction(node, transaction));
+    }
+
+    /**
+     * @param node
+     * @param address
+     * @return
+     * @throws Exception
+     */
+    public Account getAccount(Node node, Address address) throws Exception {
+        return getAccount(node, address.toString());
+    }
+
+    /**
+     * @param address
+     * @return
+     * @throws Exception
+     */
+    public Account getAccount(Address address) throws Exception {
+        return getAccount(address.toString());
+    }
+
+    /**
+     * @param node
+     * @param address
+     * @return
+     * @throws Exception
+     */
+    public List<Transaction> getTransactionsByFromAddress(Node node, Address address) throws Exception {
+        return getTransactionsByFromAddress(node, address.toString());
+    }
+
+    /**
+     * @param address
+     * @return
+     * @throws Exception
+     */
+    public List<Transaction> getTransactionsByFromAddress(Address address) throws Exception {
+        return getTransactionsByFromAddress(address.toString());
+    }
+
+    /**
+     * @param node
+     * @param address
+     * @return
+     * @throws Exception
+     */
+    public List<Transaction> getTransactionsByToAddress(Node node, Address address) throws Exception {
+        return getTransactionsByToAddress(node, address.toString());
+    }
+
+    /**
+     * @param address
+     * @return
+     * @throws Exception
+     */
+    public List<Transaction> getTransactionsByToAddress(Address address) throws Exception {
+        return getTransactionsByToAddress(address.toString());
+    }
+
+    /**
+     * @param node
+     * @param hash
+     * @return
+     * @throws Exception
+     */
+    public Receipt getStatus(Node node, Hash32 hash) throws Exception {
+        return getStatus(node, hash.toString());
+    }
+
+    /**
+     * @param hash
+     * @return
+     * @throws Exception
+     */
+    public Receipt getStatus(Hash32 hash) throws Exception {
+        return getStatus(hash.toString());
     }
 
     /**
@@ -261,10 +751,252 @@ public class Sdk {
      */
     public String createGenesisTransactionString(Account genesisAccount, long tokens) throws Exception {
         Account fromAccount = Account.create();
-        Transaction transaction = Transaction.create(fromAccount.getPrivateKey(), fromAccount.getAddress(), genesisAccount.getAddress(), Transaction.Type.TRANSFER_TOKENS, String.valueOf(tokens), "", "", "", 0);
+        Transaction transaction = Transaction.create(fromAccount.getKey(), fromAccount.getAddress(), genesisAccount.getAddress(), Transaction.Type.TRANSFER_TOKENS, String.valueOf(tokens), "", "", "", 0);
         return transaction.toString();
     }
 
+    /**
+     * Releases the pooled connections held by this instance.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (delegateDirectory != null) {
+                delegateDirectory.close();
+            }
+        }
+        http.close();
+    }
+
+    /**
+     * Posts a signed transaction to a routed delegate. The transaction is signed once up front, so a retry on another
+     * delegate resends the same transaction (and hash) instead of creating a second payment. Only failures to connect
+     * are retried; once the post may have been received the failure is reported, as a resend could be answered as a
+     * duplicate of a transaction that went through.
+     *
+     * @param transaction
+     * @return
+     * @throws Exception
+     */
+    private Receipt route(Transaction transaction) throws Exception {
+        return getDelegateRouter().send(node -> sendTransaction(node, transaction));
+    }
+
+    /**
+     * @param fromAccount
+     * @param toAccount
+     * @param tokens
+     * @return
+     * @throws Exception
+     */
+    private static Transaction createTransferTokensTransaction(Account fromAccount, Account toAccount, long tokens) throws Exception {
+        // Accounts may carry addresses the node accepts but that are not 20 bytes, so they go through the hex path.
+        return Transaction.create(fromAccount.getKey(), fromAccount.getAddress(), toAccount.getAddress(), Transaction.Type.TRANSFER_TOKENS, String.valueOf(tokens), "", "", "", System.currentTimeMillis());
+    }
+
+    /**
+     * @param fromAccount
+     * @param code
+     * @return
+     * @throws Exception
+     */
+    private static Transaction createDeployContractTransaction(Account fromAccount, String code) throws Exception {
+        return Transaction.create(
+                fromAccount.getKey(),
+                fromAccount.getAddress(),
+                "",
+                Transaction.Type.SMART_CONTRACT,
+                "0",
+                code,
+                "",
+                "",
+                System.currentTimeMillis());
+    }
+
+    /**
+     * @param fromAccount
+     * @param contractAddress
+     * @param method
+     * @param params
+     * @return
+     * @throws Exception
+     */
+    private static Transaction createExecuteContractTransaction(Account fromAccount, String contractAddress, String method, String params) throws Exception {
+        return Transaction.create(
+                fromAccount.getKey(),
+                fromAccount.getAddress(),
+                contractAddress,
+                Transaction.Type.SMART_CONTRACT,
+                "0",
+                "",
+                method,
+                params,
+                System.currentTimeMillis());
+    }
+
+    /**
+     * GETs the url, sharing the call and its decoded result with concurrent callers reading the same url.
+     *
+     * @param url
+     * @param responseReader
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    private <T> Result<T> read(String url, Http.ResponseReader<Result<T>> responseReader) throws Exception {
+        return share(url, () -> http.get(url, getHeaders(), responseReader));
+    }
+
+    /**
+     * Runs the call once for all concurrent callers of the same url; callers that join an earlier call get its result
+     * without running their own, so state that must be read before the request is read inside the call.
+     *
+     * @param url
+     * @param callable
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Result<T> share(String url, Callable<Result<T>> callable) throws Exception {
+        // The url determines the result type, so the cast is safe.
+        return (Result<T>) reads.execute(url, callable::call);
+    }
+
+    /**
+     * @param node
+     * @return the stream with the node's receipt
+     * @throws Exception
+     */
+    private Result<Stream<Transaction>> streamTransactionsResult(Node node) throws Exception {
+        return streamTransactionsResult("http://" + node.getHttpEndpoint().getHost() + ":" + String.valueOf(node.getHttpEndpoint().getPort()) + "/v1/transactions");
+    }
+
+    /**
+     * @param node
+     * @param address
+     * @return the stream with the node's receipt
+     * @throws Exception
+     */
+    private Result<Stream<Transaction>> streamTransactionsByFromAddressResult(Node node, String address) throws Exception {
+        return streamTransactionsResult("http://" + node.getHttpEndpoint().getHost() + ":" + String.valueOf(node.getHttpEndpoint().getPort()) + "/v1/transactions/from/" + address);
+    }
+
+    /**
+     * @param url
+     * @return
+     * @throws Exception
+     */
+    private Result<Stream<Transaction>> streamTransactionsResult(String url) throws Exception {
+        InputStream inputStream = http.open(url, getHeaders());
+        try {
+            return Result.readStream(inputStream, Transaction.class);
+        } catch (Throwable t) {
+            inputStream.close();
+            throw t;
+        }
+    }
+
+    /**
+     * Asks the node, caching the receipt if it is terminal and invalidating the accounts it settles.
+     *
+     * @param node
+     * @param hash
+     * @return
+     * @throws Exception
+     */
+    private Receipt fetchStatus(Node node, String hash) throws Exception {
+        // TODO: receipt.getNodeIp() is returning null. Plus, port 1975 shouldn't be hardcoded here.
+        Receipt receipt = http.get("http://" + node.getHttpEndpoint().getHost() + ":" + node.getHttpEndpoint().getPort() + "/v1/transactions/" + hash, getHeaders(), Sdk::readReceipt);
+        accountCache.settled(hash, receipt);
+        return receiptCache.put(hash, receipt);
+    }
+
+    /**
+     * Asks the node, caching the account unless a transfer invalidated accounts meanwhile.
+     *
+     * @param node
+     * @param address
+     * @return
+     * @throws Exception
+     */
+    private Result<Account> fetchAccount(Node node, String address) throws Exception {
+        String url = "http://" + node.getHttpEndpoint().getHost() + ":" + String.valueOf(node.getHttpEndpoint().getPort()) + "/v1/accounts/" + address;
+
+        // Read the epoch in the call itself: a caller joining a lookup started before an invalidation must not cache it.
+        return share(url, () -> {
+            long epoch = accountCache.getEpoch();
+            return accountCache.put(address, http.get(url, getHeaders(), inputStream -> Result.read(inputStream, Account.class)), epoch);
+        });
+    }
+
+    /**
+     * Records the receipt for {@link #getReceipt()} on the calling thread.
+     *
+     * @param receipt
+     * @return
+     */
+    private Receipt remember(Receipt receipt) {
+        lastReceipt.set(receipt);
+        return receipt;
+    }
+
+    /**
+     * Records the receipt for {@link #getReceipt()} on the calling thread.
+     *
+     * @param result
+     * @param <T>
+     * @return the data
+     */
+    private <T> T remember(Result<T> result) {
+        lastReceipt.set(result.getReceipt());
+        return result.getData();
+    }
+
+    /**
+     * Records the receipt for {@link #getReceipt()} on the calling thread.
+     *
+     * @param result
+     * @param absent returned when there is no data
+     * @param <T>
+     * @return the data
+     */
+    private <T> T remember(Result<T> result, T absent) {
+        T data = remember(result);
+        return data != null ? data : absent;
+    }
+
+    /**
+     * Copies a read result for a caller that joined another caller's request.
+     *
+     * @param result
+     * @return
+     */
+    private static Result<?> copy(Result<?> result) {
+        Object data = result.getData();
+        if (data instanceof Account) {
+            data = ((Account) data).copy();
+        } else if (data instanceof List) {
+            List<Object> list = new ArrayList<>(((List<?>) data).size());
+            for (Object element : (List<?>) data) {
+                list.add(element instanceof Transaction ? ((Transaction) element).copy() : element);
+            }
+            data = list;
+        }
+        return new Result<>(result.getReceipt() == null ? null : result.getReceipt().copy(), data);
+    }
+
+    /**
+     * @param inputStream
+     * @return
+     * @throws Exception
+     */
+    private static Receipt readReceipt(InputStream inputStream) throws Exception {
+        return (Receipt) AJson.deserialize(Receipt.class, inputStream);
+    }
+
     /**
      * @return @throws Exception
      */
@@ -279,8 +1011,7 @@ public class Sdk {
      */
     public static void main(String args[]) {
         System.out.println("Dispatch Labs SDK Example");
-        try {
-            Sdk sdk = new Sdk("localhost");
+        try (Sdk sdk = new Sdk("localhost")) {
             List<Node> nodes = sdk.getDelegates();
 
             
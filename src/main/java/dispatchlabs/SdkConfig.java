@@ -0,0 +1,234 @@
+package dispatchlabs;
+
+/**
+ * Tuning options for an {@link Sdk} instance.
+ */
+public class SdkConfig {
+
+    /**
+     * Class level-declarations.
+     */
+    private int maxConnectionsTotal = 200;
+    private int maxConnectionsPerRoute = 50;
+    private long idleConnectionTimeout = 30000;
+    private int ioThreadCount = Runtime.getRuntime().availableProcessors();
+    private int connectTimeout = 5000;
+    private int socketTimeout = 30000;
+    private long delegateEjectionTime = 30000;
+    private int maxDelegateAttempts = 2;
+    private long delegateRefreshInterval = 60000;
+    private boolean virtualThreads;
+    private long receiptCacheMaxBytes = 16 * 1024 * 1024;
+    private long accountCacheTtl;
+    private long accountCacheMaxSize = 10000;
+
+    /**
+     *
+     * @return
+     */
+    public int getMaxConnectionsTotal() {
+        return maxConnectionsTotal;
+    }
+
+    /**
+     *
+     * @param maxConnectionsTotal
+     */
+    public void setMaxConnectionsTotal(int maxConnectionsTotal) {
+        this.maxConnectionsTotal = maxConnectionsTotal;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    /**
+     *
+     * @param maxConnectionsPerRoute
+     */
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    /**
+     * Milliseconds a pooled keep-alive connection may sit unused before it is evicted.
+     * @return
+     */
+    public long getIdleConnectionTimeout() {
+        return idleConnectionTimeout;
+    }
+
+    /**
+     *
+     * @param idleConnectionTimeout
+     */
+    public void setIdleConnectionTimeout(long idleConnectionTimeout) {
+        this.idleConnectionTimeout = idleConnectionTimeout;
+    }
+
+    /**
+     * Number of I/O reactor threads used by {@link AsyncSdk}.
+     * @return
+     */
+    public int getIoThreadCount() {
+        return ioThreadCount;
+    }
+
+    /**
+     *
+     * @param ioThreadCount
+     */
+    public void setIoThreadCount(int ioThreadCount) {
+        this.ioThreadCount = ioThreadCount;
+    }
+
+    /**
+     * Milliseconds to wait for a connection to a node.
+     * @return
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     *
+     * @param connectTimeout
+     */
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * Milliseconds to wait for data from a node before the request times out.
+     * @return
+     */
+    public int getSocketTimeout() {
+        return socketTimeout;
+    }
+
+    /**
+     *
+     * @param socketTimeout
+     */
+    public void setSocketTimeout(int socketTimeout) {
+        this.socketTimeout = socketTimeout;
+    }
+
+    /**
+     * Milliseconds a failing delegate is taken out of rotation; doubles on each consecutive failure.
+     * @return
+     */
+    public long getDelegateEjectionTime() {
+        return delegateEjectionTime;
+    }
+
+    /**
+     *
+     * @param delegateEjectionTime
+     */
+    public void setDelegateEjectionTime(long delegateEjectionTime) {
+        this.delegateEjectionTime = delegateEjectionTime;
+    }
+
+    /**
+     * Delegates tried by a routed call before it gives up.
+     * @return
+     */
+    public int getMaxDelegateAttempts() {
+        return maxDelegateAttempts;
+    }
+
+    /**
+     *
+     * @param maxDelegateAttempts
+     */
+    public void setMaxDelegateAttempts(int maxDelegateAttempts) {
+        this.maxDelegateAttempts = maxDelegateAttempts;
+    }
+
+    /**
+     * Milliseconds between background refreshes of the cached delegate list.
+     * @return
+     */
+    public long getDelegateRefreshInterval() {
+        return delegateRefreshInterval;
+    }
+
+    /**
+     *
+     * @param delegateRefreshInterval
+     */
+    public void setDelegateRefreshInterval(long delegateRefreshInterval) {
+        this.delegateRefreshInterval = delegateRefreshInterval;
+    }
+
+    /**
+     * Whether {@link Sdk} uses a transport that parks virtual threads instead of pinning their carriers. Takes effect
+     * on Java 21 with the multi-release jar; elsewhere the pooled transport is used.
+     * @return
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     *
+     * @param virtualThreads
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Approximate memory, in bytes, the cache of terminal receipts may hold before evicting.
+     * @return
+     */
+    public long getReceiptCacheMaxBytes() {
+        return receiptCacheMaxBytes;
+    }
+
+    /**
+     *
+     * @param receiptCacheMaxBytes
+     */
+    public void setReceiptCacheMaxBytes(long receiptCacheMaxBytes) {
+        this.receiptCacheMaxBytes = receiptCacheMaxBytes;
+    }
+
+    /**
+     * Milliseconds an account lookup is served from the cache; 0, the default, disables the cache. Balances served
+     * from the cache may lag changes not made through this SDK by up to this long.
+     * @return
+     */
+    public long getAccountCacheTtl() {
+        return accountCacheTtl;
+    }
+
+    /**
+     *
+     * @param accountCacheTtl
+     */
+    public void setAccountCacheTtl(long accountCacheTtl) {
+        this.accountCacheTtl = accountCacheTtl;
+    }
+
+    /**
+     * Accounts kept in the cache at most.
+     * @return
+     */
+    public long getAccountCacheMaxSize() {
+        return accountCacheMaxSize;
+    }
+
+    /**
+     *
+     * @param accountCacheMaxSize
+     */
+    public void setAccountCacheMaxSize(long accountCacheMaxSize) {
+        this.accountCacheMaxSize = accountCacheMaxSize;
+    }
+}
@@ -1,8 +1,6 @@
 package dispatchlabs.crypto;
 
-import java.io.ByteArrayOutputStream;
 import java.math.BigInteger;
-import org.web3j.crypto.*;
 
 /**
  *
@@ -10,6 +8,38 @@ import org.web3j.crypto.*;
 public class Crypto {
 
     /**
+     * Class level-declarations. Set the provider property to "java" or "native" to force one; by default the native
+     * provider is used when its library loads. The provider is null when "native" is forced but unavailable.
+     */
+    public static final String PROVIDER_PROPERTY = "dispatchlabs.crypto.provider";
+    private static volatile CryptoProvider provider = createDefaultProvider();
+
+    /**
+     * @return
+     * @throws IllegalStateException if the native provider was forced but its library could not be loaded, and no
+     *                               other provider was set
+     */
+    public static CryptoProvider getProvider() {
+        CryptoProvider provider = Crypto.provider;
+        if (provider == null) {
+            throw new IllegalStateException(PROVIDER_PROPERTY + " is \"native\" but libsecp256k1 could not be loaded; build it with build.sh, or call setProvider", NativeCryptoProvider.getLoadError());
+        }
+        return provider;
+    }
+
+    /**
+     * @param provider
+     */
+    public static void setProvider(CryptoProvider provider) {
+        if (provider == null) {
+            throw new IllegalArgumentException("provider must not be null");
+        }
+        Crypto.provider = provider;
+    }
+
+    /**
+     * Derives the key pair on every call; hold on to a {@link Key} and use {@link #sign(Key, byte[])} when signing
+     * repeatedly with the same key.
      *
      * @param privateKey
      * @param hash
@@ -17,15 +47,18 @@ public class Crypto {
      * @throws Exception
      */
     public static byte[] sign(byte[] privateKey, byte[] hash) throws Exception {
-        BigInteger privKey = new BigInteger(privateKey);
-        BigInteger pubKey = Sign.publicKeyFromPrivate(privKey);
-        ECKeyPair keyPair = new ECKeyPair(privKey, pubKey);
-        Sign.SignatureData signature = Sign.signMessage(hash, keyPair, false);
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        byteArrayOutputStream.write(signature.getR());
-        byteArrayOutputStream.write(signature.getS());
-        byteArrayOutputStream.write(new byte[] {(byte)(signature.getV() - 27)});
-        return byteArrayOutputStream.toByteArray();
+        return sign(new Key(new BigInteger(1, privateKey)), hash);
+    }
+
+    /**
+     *
+     * @param key
+     * @param hash
+     * @return
+     * @throws Exception
+     */
+    public static byte[] sign(Key key, byte[] hash) throws Exception {
+        return key.sign(hash);
     }
 
     /**
@@ -33,6 +66,33 @@ public class Crypto {
      * @return
      */
     public static byte[] hash(byte[] bytes) {
-        return Hash.sha3(bytes);
+        return Keccak256.hash(bytes, 0, bytes.length);
+    }
+
+    /**
+     * @param bytes
+     * @param offset
+     * @param length
+     * @param out receives the 32 byte hash at outOffset
+     * @param outOffset
+     */
+    public static void hash(byte[] bytes, int offset, int length, byte[] out, int outOffset) {
+        Keccak256.hash(bytes, offset, length, out, outOffset);
+    }
+
+    /**
+     * @return the provider, or null when "native" is forced but unavailable
+     */
+    private static CryptoProvider createDefaultProvider() {
+        String name = System.getProperty(PROVIDER_PROPERTY, "");
+        if (name.equals("java")) {
+            return new JavaCryptoProvider();
+        }
+        if (NativeCryptoProvider.isAvailable()) {
+            return new NativeCryptoProvider();
+        }
+
+        // Failing here would leave the class unusable for good; getProvider() reports it instead.
+        return name.equals("native") ? null : new JavaCryptoProvider();
     }
 }
@@ -0,0 +1,28 @@
+package dispatchlabs.crypto;
+
+/**
+ * The secp256k1 operations behind {@link Key} and {@link Crypto#sign(Key, byte[])}. Implementations must be
+ * thread-safe.
+ */
+public interface CryptoProvider {
+
+    /**
+     * @return
+     */
+    String getName();
+
+    /**
+     * @param privateKey 32 bytes, big endian, in [1, n - 1]
+     * @return the uncompressed public key, 0x04 prefix included (65 bytes)
+     */
+    byte[] publicKeyFromPrivate(byte[] privateKey);
+
+    /**
+     * Deterministic (RFC 6979) signature with a low s value.
+     *
+     * @param key
+     * @param hash 32 bytes
+     * @return r (32 bytes), s (32 bytes) and the recovery id (1 byte)
+     */
+    byte[] sign(Key key, byte[] hash);
+}
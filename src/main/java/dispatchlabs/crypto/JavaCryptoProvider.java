@@ -0,0 +1,92 @@
+package dispatchlabs.crypto;
+
+import java.math.BigInteger;
+
+import dispatchlabs.utils.Utils;
+import org.spongycastle.crypto.digests.SHA256Digest;
+import org.spongycastle.crypto.params.ECDomainParameters;
+import org.spongycastle.crypto.signers.HMacDSAKCalculator;
+import org.spongycastle.math.ec.ECMultiplier;
+import org.spongycastle.math.ec.ECPoint;
+import org.spongycastle.math.ec.FixedPointCombMultiplier;
+
+/**
+ * Pure Java implementation on spongycastle. Used whenever the native library cannot be loaded.
+ * <p>
+ * Every multiplication here has the generator as its base, so all of them go through a fixed-base comb whose table
+ * is computed once for G and shared by every thread. Signing is plain ECDSA with RFC 6979 nonces and low s, which is
+ * what web3j produces, but the recovery id is read off the nonce point instead of being searched for by recovering
+ * candidate public keys, which used to cost more than the signature itself.
+ */
+public class JavaCryptoProvider implements CryptoProvider {
+
+    /**
+     * Class level-declarations.
+     */
+    private static final ECDomainParameters ecParams = Key.getDomainParameters();
+    private static final BigInteger halfCurveOrder = ecParams.getN().shiftRight(1);
+    private static final ECMultiplier generatorMultiplier = new FixedPointCombMultiplier();
+
+    static {
+        // Builds the comb table for G up front; it is cached on the point and reused from then on.
+        generatorMultiplier.multiply(ecParams.getG(), BigInteger.ONE);
+    }
+
+    /**
+     * @return
+     */
+    @Override
+    public String getName() {
+        return "java";
+    }
+
+    /**
+     * Derive the public key by doing a point multiply of G * privateKey.
+     *
+     * @param privateKey
+     * @return
+     */
+    @Override
+    public byte[] publicKeyFromPrivate(byte[] privateKey) {
+        return generatorMultiplier.multiply(ecParams.getG(), new BigInteger(1, privateKey)).getEncoded(false);
+    }
+
+    /**
+     * @param key
+     * @param hash
+     * @return
+     */
+    @Override
+    public byte[] sign(Key key, byte[] hash) {
+        BigInteger n = ecParams.getN();
+        BigInteger d = new BigInteger(1, key.getPrivateKeyBytes());
+        BigInteger e = new BigInteger(1, hash);
+        HMacDSAKCalculator kCalculator = new HMacDSAKCalculator(new SHA256Digest());
+        kCalculator.init(n, d, hash);
+        while (true) {
+            BigInteger k = kCalculator.nextK();
+            ECPoint point = generatorMultiplier.multiply(ecParams.getG(), k).normalize();
+            BigInteger x = point.getAffineXCoord().toBigInteger();
+            BigInteger r = x.mod(n);
+            if (r.signum() == 0) {
+                continue;
+            }
+            BigInteger s = k.modInverse(n).multiply(e.add(d.multiply(r))).mod(n);
+            if (s.signum() == 0) {
+                continue;
+            }
+            // Bit 0 is the parity of the nonce point's y, bit 1 whether its x overflowed the order.
+            int recId = (point.getAffineYCoord().testBitZero() ? 1 : 0) | (x.compareTo(n) >= 0 ? 2 : 0);
+            if (s.compareTo(halfCurveOrder) > 0) {
+                // Negating s negates the nonce point, flipping the parity of y.
+                s = n.subtract(s);
+                recId ^= 1;
+            }
+            byte[] signatureBytes = new byte[65];
+            System.arraycopy(Utils.bigIntegerToBytes(r, 32), 0, signatureBytes, 0, 32);
+            System.arraycopy(Utils.bigIntegerToBytes(s, 32), 0, signatureBytes, 32, 32);
+            signatureBytes[64] = (byte) recId;
+            return signatureBytes;
+        }
+    }
+}
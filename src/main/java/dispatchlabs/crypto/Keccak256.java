@@ -0,0 +1,127 @@
+package dispatchlabs.crypto;
+
+import java.nio.ByteBuffer;
+
+import org.bouncycastle.crypto.digests.KeccakDigest;
+
+/**
+ * Incremental Keccak-256 (the pre-standard SHA-3 used for hashes and addresses) with reusable state. An instance
+ * absorbs arrays, slices and buffers and writes the digest into a caller-provided array, then resets itself for the
+ * next message, so a hashing loop allocates nothing. Instances are not thread-safe; keep one per thread, or use the
+ * static methods, which run on a per-thread instance.
+ */
+public final class Keccak256 {
+
+    /**
+     * Class level-declarations.
+     */
+    public static final int DIGEST_LENGTH = 32;
+    private static final int SCRATCH_LENGTH = 256;
+    private static final ThreadLocal<Keccak256> threadLocal = ThreadLocal.withInitial(Keccak256::new);
+    private final KeccakDigest keccakDigest = new KeccakDigest(256);
+    private byte[] scratch;
+
+    /**
+     * @param b
+     * @return this
+     */
+    public Keccak256 update(byte b) {
+        keccakDigest.update(b);
+        return this;
+    }
+
+    /**
+     * @param in
+     * @return this
+     */
+    public Keccak256 update(byte[] in) {
+        keccakDigest.update(in, 0, in.length);
+        return this;
+    }
+
+    /**
+     * @param in
+     * @param offset
+     * @param length
+     * @return this
+     */
+    public Keccak256 update(byte[] in, int offset, int length) {
+        keccakDigest.update(in, offset, length);
+        return this;
+    }
+
+    /**
+     * Absorbs the remaining bytes of the buffer and advances its position to its limit.
+     *
+     * @param buffer
+     * @return this
+     */
+    public Keccak256 update(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            keccakDigest.update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+            return this;
+        }
+        if (scratch == null) {
+            scratch = new byte[SCRATCH_LENGTH];
+        }
+        while (buffer.hasRemaining()) {
+            int length = Math.min(scratch.length, buffer.remaining());
+            buffer.get(scratch, 0, length);
+            keccakDigest.update(scratch, 0, length);
+        }
+        return this;
+    }
+
+    /**
+     * Writes the digest of everything absorbed so far and resets.
+     *
+     * @param out
+     * @param offset
+     * @return {@link #DIGEST_LENGTH}
+     */
+    public int digest(byte[] out, int offset) {
+        return keccakDigest.doFinal(out, offset);
+    }
+
+    /**
+     * @return
+     */
+    public byte[] digest() {
+        byte[] out = new byte[DIGEST_LENGTH];
+        digest(out, 0);
+        return out;
+    }
+
+    /**
+     * Discards everything absorbed so far.
+     */
+    public void reset() {
+        keccakDigest.reset();
+    }
+
+    /**
+     * @param in
+     * @param offset
+     * @param length
+     * @param out
+     * @param outOffset
+     */
+    public static void hash(byte[] in, int offset, int length, byte[] out, int outOffset) {
+        Keccak256 keccak256 = threadLocal.get();
+        keccak256.reset();
+        keccak256.update(in, offset, length).digest(out, outOffset);
+    }
+
+    /**
+     * @param in
+     * @param offset
+     * @param length
+     * @return
+     */
+    public static byte[] hash(byte[] in, int offset, int length) {
+        byte[] out = new byte[DIGEST_LENGTH];
+        hash(in, offset, length, out, 0);
+        return out;
+    }
+}
@@ -2,29 +2,31 @@ package dispatchlabs.crypto;
 
 import java.math.BigInteger;
 import java.security.SecureRandom;
+import java.util.Arrays;
 
+import dispatchlabs.states.Address;
 import dispatchlabs.utils.Utils;
-import org.spongycastle.asn1.sec.SECNamedCurves;
 import org.spongycastle.asn1.x9.X9ECParameters;
-import org.spongycastle.crypto.AsymmetricCipherKeyPair;
-import org.spongycastle.crypto.generators.ECKeyPairGenerator;
+import org.spongycastle.crypto.ec.CustomNamedCurves;
 import org.spongycastle.crypto.params.ECDomainParameters;
-import org.spongycastle.crypto.params.ECKeyGenerationParameters;
-import org.spongycastle.crypto.params.ECPrivateKeyParameters;
-import org.spongycastle.crypto.params.ECPublicKeyParameters;
 
 /**
- *
+ * A private key together with everything derived from it. Deriving the public key is a full curve multiplication, so
+ * a Key is built once per account and reused for every signature. Instances are immutable and thread-safe. The curve
+ * operations go through {@link Crypto#getProvider()}.
  */
 public class Key {
     private static final ECDomainParameters ecParams;
     private static final SecureRandom secureRandom;
     private final BigInteger privateKey;
+    private final byte[] privateKeyBytes;
     private final byte[] publicKey;
+    private final Address address;
 
     static {
-        // All clients must agree on the curve to use by agreement. Bitcoin and Bitmessage use curve secp256k1.
-        X9ECParameters params = SECNamedCurves.getByName("secp256k1");
+        // All clients must agree on the curve to use by agreement. Bitcoin and Bitmessage use curve secp256k1. The
+        // custom curve has dedicated field arithmetic and is several times faster than the generic definition.
+        X9ECParameters params = CustomNamedCurves.getByName("secp256k1");
         ecParams = new ECDomainParameters(params.getCurve(), params.getG(), params.getN(), params.getH());
         secureRandom = new SecureRandom();
     }
@@ -33,14 +35,7 @@ public class Key {
      * Generates an entirely new keypair.
      */
     public Key() {
-        ECKeyPairGenerator generator = new ECKeyPairGenerator();
-        ECKeyGenerationParameters keygenParams = new ECKeyGenerationParameters(ecParams, secureRandom);
-        generator.init(keygenParams);
-        AsymmetricCipherKeyPair keypair = generator.generateKeyPair();
-        ECPrivateKeyParameters privParams = (ECPrivateKeyParameters) keypair.getPrivate();
-        ECPublicKeyParameters pubParams = (ECPublicKeyParameters) keypair.getPublic();
-        privateKey = privParams.getD();
-        publicKey = pubParams.getQ().getEncoded(false);// The public key is an encoded point on the elliptic curve. It has no meaning independent of the curve.
+        this(generatePrivateKey());
     }
 
     /**
@@ -48,8 +43,44 @@ public class Key {
      * private keys by doing a multiply with the generator value.
      */
     public Key(BigInteger privKey) {
+        if (privKey.signum() <= 0 || privKey.compareTo(ecParams.getN()) >= 0) {
+            throw new IllegalArgumentException("Invalid private key");
+        }
         this.privateKey = privKey;
-        this.publicKey = publicKeyFromPrivate(privKey);
+        this.privateKeyBytes = Utils.bigIntegerToBytes(privKey, 32);
+        this.publicKey = Crypto.getProvider().publicKeyFromPrivate(privateKeyBytes);
+        this.address = toAddress(publicKey);
+    }
+
+    /**
+     * @param privateKey hex encoded private key
+     */
+    public Key(String privateKey) {
+        this(new BigInteger(1, Utils.toByteArray(privateKey)));
+    }
+
+    /**
+     * Signs a 32 byte hash.
+     *
+     * @param hash
+     * @return r (32 bytes), s (32 bytes) and the recovery id (1 byte)
+     */
+    public byte[] sign(byte[] hash) {
+        return Crypto.getProvider().sign(this, hash);
+    }
+
+    /**
+     * @return the hex encoded address of this key
+     */
+    public String getAddress() {
+        return address.toString();
+    }
+
+    /**
+     * @return the address of this key
+     */
+    public Address getAddressValue() {
+        return address;
     }
 
     /**
@@ -70,7 +101,7 @@ public class Key {
      * @return
      */
     public byte[] getPrivateKeyBytes() {
-        return Utils.bigIntegerToBytes(privateKey, 32);
+        return privateKeyBytes;
     }
 
     /**
@@ -86,6 +117,39 @@ public class Key {
      * @return
      */
     public static byte[] publicKeyFromPrivate(BigInteger privKey) {
-        return ecParams.getG().multiply(privKey).getEncoded(false);
+        return Crypto.getProvider().publicKeyFromPrivate(Utils.bigIntegerToBytes(privKey, 32));
+    }
+
+    /**
+     * @return
+     */
+    static ECDomainParameters getDomainParameters() {
+        return ecParams;
+    }
+
+    /**
+     * A uniformly random scalar in [1, n - 1].
+     *
+     * @return
+     */
+    private static BigInteger generatePrivateKey() {
+        BigInteger n = ecParams.getN();
+        BigInteger privateKey;
+        do {
+            privateKey = new BigInteger(n.bitLength(), secureRandom);
+        } while (privateKey.signum() == 0 || privateKey.compareTo(n) >= 0);
+        return privateKey;
+    }
+
+    /**
+     * The address is the last 20 bytes of the hash of the public key without its prefix.
+     *
+     * @param publicKey
+     * @return
+     */
+    private static Address toAddress(byte[] publicKey) {
+        byte[] hash = new byte[Keccak256.DIGEST_LENGTH];
+        Crypto.hash(publicKey, 1, publicKey.length - 1, hash, 0);
+        return Address.of(Arrays.copyOfRange(hash, 12, 32));
     }
-}
\ No newline at end of file
+}
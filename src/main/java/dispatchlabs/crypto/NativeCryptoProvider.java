@@ -0,0 +1,131 @@
+package dispatchlabs.crypto;
+
+import java.security.SecureRandom;
+
+/**
+ * libsecp256k1 through the JNI glue in {@code src/main/c}, built by {@code build.sh}. The library is looked up on
+ * {@code java.library.path} by the name in the {@code dispatchlabs.secp256k1.library} system property, which may also
+ * be an absolute path.
+ */
+public class NativeCryptoProvider implements CryptoProvider {
+
+    /**
+     * Class level-declarations.
+     */
+    public static final String LIBRARY_PROPERTY = "dispatchlabs.secp256k1.library";
+    public static final String DEFAULT_LIBRARY = "dispatchsecp256k1";
+    private static final Throwable loadError;
+
+    static {
+        Throwable error = null;
+        try {
+            String library = System.getProperty(LIBRARY_PROPERTY, DEFAULT_LIBRARY);
+            if (library.indexOf('/') >= 0 || library.indexOf('\\') >= 0) {
+                System.load(library);
+            } else {
+                System.loadLibrary(library);
+            }
+            // Blinds the context against side channels; done once, before any other thread can use it.
+            byte[] seed = new byte[32];
+            new SecureRandom().nextBytes(seed);
+            if (secp256k1ContextRandomize(seed) != 1) {
+                throw new IllegalStateException("Unable to randomize the secp256k1 context");
+            }
+        } catch (Throwable t) {
+            error = t;
+        }
+        loadError = error;
+    }
+
+    /**
+     * @throws IllegalStateException if the native library could not be loaded
+     */
+    public NativeCryptoProvider() {
+        if (loadError != null) {
+            throw new IllegalStateException("libsecp256k1 is not available", loadError);
+        }
+    }
+
+    /**
+     * @return
+     */
+    public static boolean isAvailable() {
+        return loadError == null;
+    }
+
+    /**
+     * @return why the library could not be loaded, or null
+     */
+    public static Throwable getLoadError() {
+        return loadError;
+    }
+
+    /**
+     * @return
+     */
+    @Override
+    public String getName() {
+        return "native";
+    }
+
+    /**
+     * @param privateKey
+     * @return
+     */
+    @Override
+    public byte[] publicKeyFromPrivate(byte[] privateKey) {
+        checkLength(privateKey, 32, "privateKey");
+        byte[] publicKey = new byte[65];
+        if (secp256k1PublicKeyCreate(privateKey, publicKey) != 1) {
+            throw new IllegalArgumentException("Invalid private key");
+        }
+        return publicKey;
+    }
+
+    /**
+     * @param key
+     * @param hash
+     * @return
+     */
+    @Override
+    public byte[] sign(Key key, byte[] hash) {
+        checkLength(hash, 32, "hash");
+        byte[] signature = new byte[65];
+        if (secp256k1SignRecoverable(key.getPrivateKeyBytes(), hash, signature) != 1) {
+            throw new IllegalArgumentException("Unable to sign");
+        }
+        return signature;
+    }
+
+    /**
+     * @param bytes
+     * @param length
+     * @param name
+     */
+    private static void checkLength(byte[] bytes, int length, String name) {
+        if (bytes == null || bytes.length != length) {
+            throw new IllegalArgumentException(name + " must be " + length + " bytes");
+        }
+    }
+
+    /**
+     * @param seed 32 bytes
+     * @return 1 on success
+     */
+    private static native int secp256k1ContextRandomize(byte[] seed);
+
+    /**
+     * @param privateKey 32 bytes
+     * @param publicKey  65 bytes, receives the uncompressed public key
+     * @return 1 on success, 0 if the private key is invalid
+     */
+    private static native int secp256k1PublicKeyCreate(byte[] privateKey, byte[] publicKey);
+
+    /**
+     * @param privateKey 32 bytes
+     * @param hash       32 bytes
+     * @param signature  65 bytes, receives r, s and the recovery id
+     * @return 1 on success
+     */
+    private static native int secp256k1SignRecoverable(byte[] privateKey, byte[] hash, byte[] signature);
+}
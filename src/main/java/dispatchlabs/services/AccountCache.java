@@ -0,0 +1,172 @@
+package dispatchlabs.services;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import dispatchlabs.states.Account;
+import dispatchlabs.states.Receipt;
+import dispatchlabs.states.Result;
+import dispatchlabs.states.Transaction;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Account lookups keyed by address, kept for a fixed time and bounded in number. A transaction submitted through the
+ * owning SDK invalidates its sender and recipient right away, and again when its receipt settles, since that is when
+ * the balances change. A lookup that was in flight while anything was invalidated is not cached, so a read racing a
+ * transfer cannot reinstate a stale balance. The cache keeps its own copies and hands out copies, so callers may
+ * change what they get. A time to live of 0 disables it.
+ */
+public class AccountCache {
+
+    /**
+     * Class level-declarations.
+     */
+    private final Cache<String, Result<Account>> accounts;
+    private final Cache<String, Transaction> submitted;
+    private final AtomicLong epoch = new AtomicLong();
+    private final long ttl;
+
+    /**
+     * Remembers submitted transactions for five minutes.
+     *
+     * @param ttl     milliseconds an account is served from the cache
+     * @param maxSize accounts kept at most
+     */
+    public AccountCache(long ttl, long maxSize) {
+        this(ttl, maxSize, 300000);
+    }
+
+    /**
+     * @param ttl           milliseconds an account is served from the cache
+     * @param maxSize       accounts kept at most
+     * @param settleTimeout milliseconds a submitted transaction is remembered while waiting for its receipt to settle
+     */
+    public AccountCache(long ttl, long maxSize, long settleTimeout) {
+        this.ttl = ttl;
+        this.accounts = CacheBuilder.newBuilder()
+                .expireAfterWrite(Math.max(ttl, 0), TimeUnit.MILLISECONDS)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        this.submitted = CacheBuilder.newBuilder()
+                .expireAfterWrite(settleTimeout, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Counts a hit or a miss.
+     *
+     * @param address
+     * @return a copy of the cached lookup, or null
+     */
+    public Result<Account> get(String address) {
+        Result<Account> result = accounts.getIfPresent(address);
+        return result == null ? null : copy(result);
+    }
+
+    /**
+     * Read before starting a lookup and pass to {@link #put(String, Result, long)}.
+     *
+     * @return
+     */
+    public long getEpoch() {
+        return epoch.get();
+    }
+
+    /**
+     * Caches a successful lookup unless something was invalidated since it started.
+     *
+     * @param address
+     * @param result
+     * @param epoch   the value of {@link #getEpoch()} before the lookup started
+     * @return the result
+     */
+    public Result<Account> put(String address, Result<Account> result, long epoch) {
+        if (ttl > 0 && result.getData() != null && result.getReceipt() != null && result.getReceipt().isOk() && this.epoch.get() == epoch) {
+            accounts.put(address, copy(result));
+        }
+        return result;
+    }
+
+    /**
+     * Invalidates both parties and remembers them until the receipt settles.
+     *
+     * @param transaction
+     */
+    public void submitted(Transaction transaction) {
+        invalidate(transaction);
+        if (transaction.getHash() != null) {
+            submitted.put(transaction.getHash(), transaction);
+        }
+    }
+
+    /**
+     * Invalidates both parties of a submitted transaction once its receipt settles.
+     *
+     * @param hash
+     * @param receipt
+     */
+    public void settled(String hash, Receipt receipt) {
+        if (receipt == null || !receipt.isTerminal()) {
+            return;
+        }
+        Transaction transaction = submitted.getIfPresent(hash);
+        if (transaction != null) {
+            submitted.invalidate(hash);
+            invalidate(transaction);
+        }
+    }
+
+    /**
+     * @param address
+     */
+    public void invalidate(String address) {
+        epoch.incrementAndGet();
+        accounts.invalidate(address);
+    }
+
+    /**
+     *
+     */
+    public void invalidateAll() {
+        epoch.incrementAndGet();
+        accounts.invalidateAll();
+    }
+
+    /**
+     * @return
+     */
+    public long size() {
+        return accounts.size();
+    }
+
+    /**
+     * @return hit, miss and eviction counters
+     */
+    public CacheStats getStats() {
+        return accounts.stats();
+    }
+
+    /**
+     * @param result
+     * @return
+     */
+    private static Result<Account> copy(Result<Account> result) {
+        return new Result<>(result.getReceipt().copy(), result.getData().copy());
+    }
+
+    /**
+     * @param transaction
+     */
+    private void invalidate(Transaction transaction) {
+        epoch.incrementAndGet();
+        if (transaction.getFrom() != null) {
+            accounts.invalidate(transaction.getFrom());
+        }
+        if (transaction.getTo() != null) {
+            accounts.invalidate(transaction.getTo());
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package dispatchlabs.services;
+
+import dispatchlabs.Sdk;
+import dispatchlabs.states.Result;
+import dispatchlabs.states.Transaction;
+import dispatchlabs.utils.Threads;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Follows incoming transactions of many addresses and reports only the ones not seen before. Each address keeps an
+ * index of the hashes it has seen, so a poll decodes the listing as a stream and looks at each transaction once
+ * instead of diffing it against the whole history. Transaction {@code time} is set by the sender, so it is never used
+ * to decide what was seen. The index is bounded: every listing refreshes the hashes it contains, and the ones that
+ * dropped out of the listings longest ago are evicted first; an address whose listing outgrows the bound is logged,
+ * as its evicted transactions would be reported again. Polls are jittered across the interval so thousands of
+ * addresses do not hit the delegates at the same moment, run on {@link Threads#newThreadPerTaskExecutor(String)}
+ * threads, and are capped in number at any one time.
+ */
+public class AddressWatcher implements AutoCloseable {
+
+    /**
+     * One watched address.
+     */
+    private static class Watch {
+
+        /**
+         * Class level-declarations.
+         */
+        private final String address;
+        private final long since;
+        private final Map<String, Boolean> seenHashes;
+        private boolean baseline;
+        private boolean overflowed;
+        private volatile boolean cancelled;
+
+        /**
+         * @param address
+         * @param since     transactions from this time on are reported
+         * @param baseline  whether the first poll only records what is already there
+         * @param maxHashes hashes kept in the index
+         */
+        private Watch(String address, long since, boolean baseline, int maxHashes) {
+            this.address = address;
+            this.since = since;
+            this.baseline = baseline;
+
+            // In access order, so the hashes still listed stay and the ones no longer listed are evicted.
+            this.seenHashes = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+
+                /**
+                 * Class level-declarations.
+                 */
+                private static final long serialVersionUID = 1L;
+
+                /**
+                 * @param eldest
+                 * @return
+                 */
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    if (size() <= maxHashes) {
+                        return false;
+                    }
+                    if (!overflowed) {
+                        overflowed = true;
+                        logger.warn("More than " + maxHashes + " transactions to " + Watch.this.address + "; evicted ones may be reported again");
+                    }
+                    return true;
+                }
+            };
+        }
+    }
+
+    /**
+     * Class level-declarations.
+     */
+    private static final Logger logger = Logger.getLogger(AddressWatcher.class);
+    private static final double JITTER = 0.2;
+    private final Sdk sdk;
+    private final long interval;
+    private final int maxHashes;
+    private final Semaphore polls;
+    private final ScheduledExecutorService scheduledExecutorService;
+    private final ExecutorService executorService;
+    private final ConcurrentMap<String, Watch> watches = new ConcurrentHashMap<>();
+    private final List<BiConsumer<String, Transaction>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param sdk
+     */
+    public AddressWatcher(Sdk sdk) {
+        this(sdk, 5000, 10000, 32);
+    }
+
+    /**
+     * @param sdk
+     * @param interval           milliseconds between polls of one address
+     * @param maxHashes          transaction hashes remembered per address
+     * @param maxConcurrentPolls polls running at any one time
+     */
+    public AddressWatcher(Sdk sdk, long interval, int maxHashes, int maxConcurrentPolls) {
+        this.sdk = sdk;
+        this.interval = interval;
+        this.maxHashes = maxHashes;
+        this.polls = new Semaphore(maxConcurrentPolls);
+        this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dispatchlabs-address-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executorService = Threads.newThreadPerTaskExecutor("dispatchlabs-address-watcher-poll");
+    }
+
+    /**
+     * Registers a listener called with the address and each new transaction, oldest first. Listeners are called on
+     * poll threads and should not block.
+     *
+     * @param listener
+     */
+    public void addListener(BiConsumer<String, Transaction> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener
+     */
+    public void removeListener(BiConsumer<String, Transaction> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Reports transactions arriving from now on; the existing history is taken as seen.
+     *
+     * @param address
+     */
+    public void watch(String address) {
+        watch(address, 0, true);
+    }
+
+    /**
+     * Reports every transaction with a time from {@code since} on, including ones already there.
+     *
+     * @param address
+     * @param since
+     */
+    public void watch(String address, long since) {
+        watch(address, since, false);
+    }
+
+    /**
+     * @param address
+     */
+    public void unwatch(String address) {
+        Watch watch = watches.remove(address);
+        if (watch != null) {
+            watch.cancelled = true;
+        }
+    }
+
+    /**
+     * @return
+     */
+    public int getWatchCount() {
+        return watches.size();
+    }
+
+    /**
+     * Stops polling.
+     */
+    @Override
+    public void close() {
+        scheduledExecutorService.shutdownNow();
+        executorService.shutdownNow();
+    }
+
+    /**
+     * @param address
+     * @param since
+     * @param baseline
+     */
+    private void watch(String address, long since, boolean baseline) {
+        watches.computeIfAbsent(address, key -> {
+            Watch created = new Watch(key, since, baseline, maxHashes);
+
+            // Spread the first polls over a whole interval.
+            schedule(created, (long) (ThreadLocalRandom.current().nextDouble() * interval));
+            return created;
+        });
+    }
+
+    /**
+     * @param watch
+     * @param delay
+     */
+    private void schedule(Watch watch, long delay) {
+        try {
+            scheduledExecutorService.schedule(() -> executorService.execute(() -> poll(watch)), delay, TimeUnit.MILLISECONDS);
+        } catch (Throwable rejected) {
+            // Closed.
+        }
+    }
+
+    /**
+     * Polls of one address never overlap, so its index needs no locking.
+     *
+     * @param watch
+     */
+    private void poll(Watch watch) {
+        if (watch.cancelled) {
+            return;
+        }
+        List<Transaction> transactions = new ArrayList<>();
+        boolean polled = false;
+        try {
+            polls.acquire();
+            try {
+                // A failed request is not an empty listing; in particular a failed baseline must not count as one.
+                Result<Stream<Transaction>> result = sdk.streamTransactionsByToAddressResult(watch.address);
+                if (result.getData() != null) {
+                    try (Stream<Transaction> stream = result.getData()) {
+                        // The lookup also refreshes the hash in the index.
+                        stream.forEach(transaction -> {
+                            if (transaction.getHash() != null && watch.seenHashes.get(transaction.getHash()) == null) {
+                                transactions.add(transaction);
+                            }
+                        });
+                        polled = true;
+                    }
+                }
+            } finally {
+                polls.release();
+            }
+        } catch (InterruptedException e) {
+            return;
+        } catch (Throwable t) {
+            // Try again next time.
+        }
+        if (polled) {
+            index(watch, transactions);
+        }
+        if (!watch.cancelled) {
+            schedule(watch, (long) (interval * (1 - JITTER + 2 * JITTER * ThreadLocalRandom.current().nextDouble())));
+        }
+    }
+
+    /**
+     * Records the new transactions and reports them unless this is the baseline poll or they are older than
+     * {@code since}.
+     *
+     * @param watch
+     * @param transactions
+     */
+    private void index(Watch watch, List<Transaction> transactions) {
+        transactions.sort(Comparator.comparingLong(Transaction::getTime));
+        for (Transaction transaction : transactions) {
+            watch.seenHashes.put(transaction.getHash(), Boolean.TRUE);
+            if (!watch.baseline && !watch.cancelled && transaction.getTime() >= watch.since) {
+                for (BiConsumer<String, Transaction> listener : listeners) {
+                    try {
+                        listener.accept(watch.address, transaction);
+                    } catch (Throwable t) {
+                        // A failing listener does not stop the others.
+                    }
+                }
+            }
+        }
+        watch.baseline = false;
+    }
+}
@@ -0,0 +1,109 @@
+package dispatchlabs.services;
+
+import dispatchlabs.crypto.Key;
+import dispatchlabs.states.Transaction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Hashes and signs batches of unsigned transactions on all cores. The batch is cut into a few chunks per worker and
+ * each chunk is signed in place by one task, so the per-task overhead stays small next to the signatures themselves.
+ */
+public class BatchSigner {
+
+    /**
+     * Class level-declarations.
+     */
+    private static final int CHUNKS_PER_WORKER = 4;
+    private final ExecutorService executorService;
+    private final int parallelism;
+
+    /**
+     * Signs on the common ForkJoin pool.
+     */
+    public BatchSigner() {
+        this(ForkJoinPool.commonPool(), ForkJoinPool.getCommonPoolParallelism());
+    }
+
+    /**
+     * @param executorService
+     * @param parallelism number of threads of the executor that signing may occupy
+     */
+    public BatchSigner(ExecutorService executorService, int parallelism) {
+        this.executorService = executorService;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * @param key
+     * @param transactions
+     * @return
+     * @throws Exception
+     */
+    public List<Transaction> sign(Key key, List<Transaction> transactions) throws Exception {
+        return sign(transaction -> key, transactions);
+    }
+
+    /**
+     * @param keys         signing keys by sender address
+     * @param transactions
+     * @return
+     * @throws Exception
+     */
+    public List<Transaction> sign(Map<String, Key> keys, List<Transaction> transactions) throws Exception {
+        return sign(transaction -> {
+            Key key = keys.get(transaction.getFrom());
+            if (key == null) {
+                throw new IllegalArgumentException("No key for " + transaction.getFrom());
+            }
+            return key;
+        }, transactions);
+    }
+
+    /**
+     * Signs every transaction in place, each with the key returned for it.
+     *
+     * @param keys
+     * @param transactions
+     * @return the same transactions, in input order
+     * @throws Exception the first signing failure
+     */
+    public List<Transaction> sign(Function<Transaction, Key> keys, List<Transaction> transactions) throws Exception {
+        int size = transactions.size();
+        if (size == 0) {
+            return Collections.emptyList();
+        }
+        int chunkSize = Math.max(1, (size + parallelism * CHUNKS_PER_WORKER - 1) / (parallelism * CHUNKS_PER_WORKER));
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int start = 0; start < size; start += chunkSize) {
+            List<Transaction> chunk = transactions.subList(start, Math.min(size, start + chunkSize));
+            tasks.add(() -> {
+                for (Transaction transaction : chunk) {
+                    transaction.sign(keys.apply(transaction));
+                }
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : executorService.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+        return transactions;
+    }
+}
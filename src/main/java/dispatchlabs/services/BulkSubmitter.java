@@ -0,0 +1,206 @@
+package dispatchlabs.services;
+
+import dispatchlabs.AsyncSdk;
+import dispatchlabs.states.Account;
+import dispatchlabs.states.Receipt;
+import dispatchlabs.states.Transaction;
+import dispatchlabs.states.TransactionTemplate;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Submits large batches of token transfers with a bounded number of POSTs in flight, spread across the delegates by
+ * the {@link DelegateRouter}. Transfers are pulled from the source lazily and signed on the calling thread, which
+ * blocks whenever the window is full, so a slow network throttles the producer instead of queueing without limit.
+ */
+public class BulkSubmitter {
+
+    /**
+     * A transfer to submit.
+     */
+    public static class Transfer {
+
+        /**
+         * Class level-declarations.
+         */
+        private final Account fromAccount;
+        private final String to;
+        private final long tokens;
+
+        /**
+         * @param fromAccount
+         * @param to
+         * @param tokens
+         */
+        public Transfer(Account fromAccount, String to, long tokens) {
+            this.fromAccount = fromAccount;
+            this.to = to;
+            this.tokens = tokens;
+        }
+
+        /**
+         * @return
+         */
+        public Account getFromAccount() {
+            return fromAccount;
+        }
+
+        /**
+         * @return
+         */
+        public String getTo() {
+            return to;
+        }
+
+        /**
+         * @return
+         */
+        public long getTokens() {
+            return tokens;
+        }
+    }
+
+    /**
+     * Receives the outcome of every transfer as it arrives, on an I/O thread; implementations should not block.
+     */
+    public interface Listener {
+
+        /**
+         * @param transfer
+         * @param transaction
+         * @param receipt the node's answer to the POST, or the settled receipt when a {@link StatusPoller} is used
+         */
+        void onReceipt(Transfer transfer, Transaction transaction, Receipt receipt);
+
+        /**
+         * @param transfer
+         * @param transaction null if signing failed
+         * @param t
+         */
+        void onFailure(Transfer transfer, Transaction transaction, Throwable t);
+    }
+
+    /**
+     * Class level-declarations.
+     */
+    private final AsyncSdk asyncSdk;
+    private final int window;
+    private final StatusPoller statusPoller;
+
+    /**
+     * @param asyncSdk
+     * @param window maximum POSTs in flight
+     */
+    public BulkSubmitter(AsyncSdk asyncSdk, int window) {
+        this(asyncSdk, window, null);
+    }
+
+    /**
+     * @param asyncSdk
+     * @param window       maximum POSTs in flight
+     * @param statusPoller when set, each accepted transaction is watched and the listener gets the settled receipt;
+     *                     the window slot is still released as soon as the POST completes
+     */
+    public BulkSubmitter(AsyncSdk asyncSdk, int window, StatusPoller statusPoller) {
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        this.asyncSdk = asyncSdk;
+        this.window = window;
+        this.statusPoller = statusPoller;
+    }
+
+    /**
+     * @param transfers
+     * @param listener
+     * @return
+     * @throws Exception
+     */
+    public CompletableFuture<Void> submit(Stream<Transfer> transfers, Listener listener) throws Exception {
+        return submit(transfers::iterator, listener);
+    }
+
+    /**
+     * Signs and posts every transfer, blocking while {@code window} POSTs are in flight.
+     *
+     * @param transfers
+     * @param listener
+     * @return a future completing once every transfer has been reported to the listener
+     * @throws Exception if the delegates cannot be resolved or the calling thread is interrupted
+     */
+    public CompletableFuture<Void> submit(Iterable<Transfer> transfers, Listener listener) throws Exception {
+        DelegateRouter delegateRouter = asyncSdk.getDelegateRouter().get();
+        Semaphore semaphore = new Semaphore(window);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(1);
+        Runnable countDown = () -> {
+            if (remaining.decrementAndGet() == 0) {
+                done.complete(null);
+            }
+        };
+        // One template per sender, so the fixed fields of a sender's transfers are encoded once.
+        Map<Account, TransactionTemplate> templates = new IdentityHashMap<>();
+        try {
+            Iterator<Transfer> iterator = transfers.iterator();
+            while (iterator.hasNext()) {
+                Transfer transfer = iterator.next();
+                Transaction transaction;
+                try {
+                    Account fromAccount = transfer.getFromAccount();
+                    TransactionTemplate template = templates.computeIfAbsent(fromAccount, account -> new TransactionTemplate(account.getKey(), account.getAddress(), Transaction.Type.TRANSFER_TOKENS, "", "", ""));
+                    transaction = template.create(transfer.getTo(), String.valueOf(transfer.getTokens()));
+                } catch (Exception e) {
+                    listener.onFailure(transfer, null, e);
+                    continue;
+                }
+                semaphore.acquire();
+                remaining.incrementAndGet();
+                delegateRouter.sendAsync(node -> asyncSdk.sendTransactionAsync(node, transaction).thenApply(receipt -> {
+                    // Watch on the delegate that accepted it; it knows the transaction first.
+                    if (statusPoller != null && receipt.getStatus() != null && receipt.getStatus().equals(Receipt.Status.PENDING)) {
+                        statusPoller.watch(node, transaction.getHash()).whenComplete((settled, t) -> {
+                            deliver(listener, transfer, transaction, settled, t);
+                            countDown.run();
+                        });
+                        return null;
+                    }
+                    return receipt;
+                })).whenComplete((receipt, t) -> {
+                    semaphore.release();
+                    if (t != null || receipt != null) {
+                        deliver(listener, transfer, transaction, receipt, t);
+                        countDown.run();
+                    }
+                });
+            }
+        } finally {
+            countDown.run();
+        }
+        return done;
+    }
+
+    /**
+     * @param listener
+     * @param transfer
+     * @param transaction
+     * @param receipt
+     * @param t
+     */
+    private static void deliver(Listener listener, Transfer transfer, Transaction transaction, Receipt receipt, Throwable t) {
+        try {
+            if (t != null) {
+                listener.onFailure(transfer, transaction, t);
+            } else {
+                listener.onReceipt(transfer, transaction, receipt);
+            }
+        } catch (Throwable ignored) {
+            // A failing listener must not stall the batch.
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package dispatchlabs.services;
+
+import dispatchlabs.states.Node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Cached view of the delegate list. A background thread refreshes it every refresh interval, trying the seed nodes in
+ * turn starting with the last one that answered, and keeps serving the previous list when every seed fails. Lookups
+ * only read the cached snapshot and never touch the network.
+ */
+public class DelegateDirectory implements AutoCloseable {
+
+    /**
+     * Fetches the delegate list from one seed node.
+     */
+    public interface Loader {
+
+        /**
+         * @param seedNodeIp
+         * @return
+         * @throws Exception
+         */
+        List<Node> getDelegates(String seedNodeIp) throws Exception;
+    }
+
+    /**
+     * Class level-declarations.
+     */
+    private final List<String> seedNodeIps;
+    private final Loader loader;
+    private final long refreshInterval;
+    private final ScheduledExecutorService scheduledExecutorService;
+    private final List<Consumer<List<Node>>> listeners = new CopyOnWriteArrayList<>();
+    private volatile List<Node> nodes = Collections.emptyList();
+    private volatile long updated;
+    private int seedIndex;
+
+    /**
+     * @param seedNodeIps
+     * @param loader
+     * @param refreshInterval milliseconds between refreshes
+     */
+    public DelegateDirectory(List<String> seedNodeIps, Loader loader, long refreshInterval) {
+        if (seedNodeIps == null || seedNodeIps.isEmpty()) {
+            throw new IllegalArgumentException("At least one seed node is required");
+        }
+        this.seedNodeIps = Collections.unmodifiableList(new ArrayList<>(seedNodeIps));
+        this.loader = loader;
+        this.refreshInterval = refreshInterval;
+        this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dispatchlabs-delegate-directory");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts refreshing in the background, beginning immediately.
+     *
+     * @return this
+     */
+    public DelegateDirectory start() {
+        scheduledExecutorService.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (Throwable t) {
+                // Keep serving the previous list; the next run retries.
+            }
+        }, 0, refreshInterval, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    /**
+     * The cached delegates; empty until the first refresh has succeeded.
+     *
+     * @return
+     */
+    public List<Node> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * The cached delegates, fetching them first if none are loaded yet. Callers arriving during that first fetch wait
+     * for it and share its list instead of each asking the seeds again.
+     *
+     * @return
+     * @throws Exception
+     */
+    public List<Node> load() throws Exception {
+        if (updated != 0) {
+            return nodes;
+        }
+        synchronized (this) {
+            return updated != 0 ? nodes : refresh();
+        }
+    }
+
+    /**
+     * Runs {@link #load()} on the background thread.
+     *
+     * @return
+     */
+    public CompletableFuture<List<Node>> loadAsync() {
+        if (updated != 0) {
+            return CompletableFuture.completedFuture(nodes);
+        }
+        CompletableFuture<List<Node>> completableFuture = new CompletableFuture<>();
+        scheduledExecutorService.execute(() -> {
+            try {
+                completableFuture.complete(load());
+            } catch (Throwable t) {
+                completableFuture.completeExceptionally(t);
+            }
+        });
+        return completableFuture;
+    }
+
+    /**
+     * Runs {@link #refresh()} on the background thread.
+     *
+     * @return
+     */
+    public CompletableFuture<List<Node>> refreshAsync() {
+        CompletableFuture<List<Node>> completableFuture = new CompletableFuture<>();
+        scheduledExecutorService.execute(() -> {
+            try {
+                completableFuture.complete(refresh());
+            } catch (Throwable t) {
+                completableFuture.completeExceptionally(t);
+            }
+        });
+        return completableFuture;
+    }
+
+    /**
+     * @return milliseconds since the list was last refreshed, or -1 if it never was
+     */
+    public long getAge() {
+        long updated = this.updated;
+        return updated == 0 ? -1 : System.currentTimeMillis() - updated;
+    }
+
+    /**
+     * Registers a listener called with every refreshed list, and immediately with the current one if loaded.
+     *
+     * @param listener
+     */
+    public void addListener(Consumer<List<Node>> listener) {
+        listeners.add(listener);
+        if (updated != 0) {
+            listener.accept(nodes);
+        }
+    }
+
+    /**
+     * Fetches the list now, failing over across the seeds.
+     *
+     * @return
+     * @throws Exception
+     */
+    public synchronized List<Node> refresh() throws Exception {
+        Exception exception = null;
+        for (int i = 0; i < seedNodeIps.size(); i++) {
+            int index = (seedIndex + i) % seedNodeIps.size();
+            try {
+                List<Node> fetched = loader.getDelegates(seedNodeIps.get(index));
+                if (fetched == null || fetched.isEmpty()) {
+                    continue;
+                }
+                seedIndex = index;
+                nodes = Collections.unmodifiableList(new ArrayList<>(fetched));
+                updated = System.currentTimeMillis();
+                for (Consumer<List<Node>> listener : listeners) {
+                    listener.accept(nodes);
+                }
+                return nodes;
+            } catch (Exception e) {
+                exception = e;
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+        throw new IllegalStateException("No seed node returned any delegates");
+    }
+
+    /**
+     *
+     */
+    @Override
+    public void close() {
+        scheduledExecutorService.shutdownNow();
+    }
+}
@@ -0,0 +1,447 @@
+package dispatchlabs.services;
+
+import dispatchlabs.states.Node;
+import dispatchlabs.states.Receipt;
+import dispatchlabs.states.Result;
+import org.apache.http.conn.ConnectTimeoutException;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spreads requests across all delegates. Each call goes to the better of two randomly sampled delegates, scored by
+ * EWMA latency weighted by outstanding requests ("power of two choices"), which keeps load even without global
+ * coordination. Delegates that fail with an I/O error (including timeouts) or answer
+ * {@link Receipt.Status#UNABLE_TO_CONNECT_TO_DELEGATE} are ejected for a back-off period that grows with consecutive
+ * failures, and the call is retried on another delegate. Calls made through {@link #execute(Call)} may therefore run
+ * more than once and must be safe to repeat. Posts go through {@link #send(Call)}, which only retries when the
+ * request cannot have reached the delegate (it could not connect); after a read timeout the first delegate may
+ * already have accepted it, so the failure is reported instead of posting again.
+ */
+public class DelegateRouter {
+
+    /**
+     * A blocking request against one delegate.
+     */
+    public interface Call<T> {
+
+        /**
+         * @param node
+         * @return
+         * @throws Exception
+         */
+        T call(Node node) throws Exception;
+    }
+
+    /**
+     * A non-blocking request against one delegate.
+     */
+    public interface AsyncCall<T> {
+
+        /**
+         * @param node
+         * @return
+         */
+        CompletableFuture<T> call(Node node);
+    }
+
+    /**
+     * Per-delegate statistics. Updates are not atomic with respect to each other; the figures only steer selection,
+     * so an occasional lost update is harmless.
+     */
+    private static class Delegate {
+
+        /**
+         * Class level-declarations.
+         */
+        private final Node node;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private volatile double ewmaLatency;
+        private volatile long lastUpdate = System.nanoTime();
+        private volatile long ejectedUntil;
+
+        /**
+         * @param node
+         * @param ewmaLatency the estimate to start from, in nanoseconds
+         */
+        private Delegate(Node node, double ewmaLatency) {
+            this.node = node;
+            this.ewmaLatency = ewmaLatency;
+        }
+
+        /**
+         * The latency estimate decays while a delegate sits unused, so one slow sample cannot starve it forever. It
+         * never decays below {@link #MIN_LATENCY}, so outstanding requests still count for an idle delegate.
+         *
+         * @return
+         */
+        private double getScore() {
+            double decay = Math.exp(-(System.nanoTime() - lastUpdate) / EWMA_DECAY_TIME);
+            return Math.max(ewmaLatency * decay, MIN_LATENCY) * (outstanding.get() + 1);
+        }
+    }
+
+    /**
+     * Class level-declarations.
+     */
+    private static final double EWMA_WEIGHT = 0.2;
+    private static final double EWMA_DECAY_TIME = 5e9;
+    private static final double INITIAL_LATENCY = 1e8;
+    private static final double MIN_LATENCY = 1e6;
+    private static final int MAX_EJECTION_SHIFT = 6;
+    private final long ejectionTime;
+    private final int maxAttempts;
+    private volatile List<Delegate> delegates = Collections.emptyList();
+
+    /**
+     * @param nodes
+     */
+    public DelegateRouter(List<Node> nodes) {
+        this(nodes, 30000, 2);
+    }
+
+    /**
+     * @param nodes
+     * @param ejectionTime milliseconds a failing delegate is skipped for, doubled on each consecutive failure
+     * @param maxAttempts  delegates tried per call before giving up
+     */
+    public DelegateRouter(List<Node> nodes, long ejectionTime, int maxAttempts) {
+        this.ejectionTime = ejectionTime;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        setNodes(nodes);
+    }
+
+    /**
+     * Replaces the delegate set. Statistics are kept for delegates that are still present.
+     *
+     * @param nodes
+     */
+    public synchronized void setNodes(List<Node> nodes) {
+        Map<String, Delegate> existing = new HashMap<>();
+        for (Delegate delegate : delegates) {
+            existing.put(getKey(delegate.node), delegate);
+        }
+        // New delegates start from the median of the current ones, neither favoured nor shunned until measured.
+        double initialLatency = getMedianLatency();
+        List<Delegate> updated = new ArrayList<>();
+        if (nodes != null) {
+            for (Node node : nodes) {
+                Delegate delegate = existing.get(getKey(node));
+                updated.add(delegate != null ? delegate : new Delegate(node, initialLatency));
+            }
+        }
+        delegates = Collections.unmodifiableList(updated);
+    }
+
+    /**
+     * @return the median latency estimate of the delegates, or {@link #INITIAL_LATENCY} when there are none
+     */
+    private double getMedianLatency() {
+        if (delegates.isEmpty()) {
+            return INITIAL_LATENCY;
+        }
+        double[] latencies = new double[delegates.size()];
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = delegates.get(i).ewmaLatency;
+        }
+        Arrays.sort(latencies);
+        return latencies[latencies.length / 2];
+    }
+
+    /**
+     * @return
+     */
+    public List<Node> getNodes() {
+        List<Node> nodes = new ArrayList<>();
+        for (Delegate delegate : delegates) {
+            nodes.add(delegate.node);
+        }
+        return nodes;
+    }
+
+    /**
+     * Picks a delegate without tracking the request; prefer {@link #execute(Call)}.
+     *
+     * @return the chosen node, or null when there are no delegates
+     */
+    public Node select() {
+        Delegate delegate = select(Collections.emptySet());
+        return delegate == null ? null : delegate.node;
+    }
+
+    /**
+     * For requests that are safe to repeat; retried on any I/O error.
+     *
+     * @param call
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    public <T> T execute(Call<T> call) throws Exception {
+        return execute(call, true);
+    }
+
+    /**
+     * For requests that must not be repeated once sent; retried only when connecting failed.
+     *
+     * @param call
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    public <T> T send(Call<T> call) throws Exception {
+        return execute(call, false);
+    }
+
+    /**
+     * For requests that are safe to repeat; retried on any I/O error.
+     *
+     * @param asyncCall
+     * @param <T>
+     * @return
+     */
+    public <T> CompletableFuture<T> executeAsync(AsyncCall<T> asyncCall) {
+        CompletableFuture<T> completableFuture = new CompletableFuture<>();
+        executeAsync(asyncCall, true, new HashSet<>(), completableFuture);
+        return completableFuture;
+    }
+
+    /**
+     * For requests that must not be repeated once sent; retried only when connecting failed.
+     *
+     * @param asyncCall
+     * @param <T>
+     * @return
+     */
+    public <T> CompletableFuture<T> sendAsync(AsyncCall<T> asyncCall) {
+        CompletableFuture<T> completableFuture = new CompletableFuture<>();
+        executeAsync(asyncCall, false, new HashSet<>(), completableFuture);
+        return completableFuture;
+    }
+
+    /**
+     * @param call
+     * @param repeatable whether the call may be repeated after it was sent
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    private <T> T execute(Call<T> call, boolean repeatable) throws Exception {
+        Set<Delegate> tried = new HashSet<>();
+        Exception exception = null;
+        T result = null;
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            Delegate delegate = select(tried);
+            if (delegate == null) {
+                break;
+            }
+            tried.add(delegate);
+            delegate.outstanding.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                result = call.call(delegate.node);
+                if (!isUnavailable(result)) {
+                    onSuccess(delegate, System.nanoTime() - start);
+                    return result;
+                }
+                onFailure(delegate);
+                exception = null;
+            } catch (IOException e) {
+                onFailure(delegate);
+                if (!repeatable && !isNotSent(e)) {
+                    throw e;
+                }
+                exception = e;
+            } finally {
+                delegate.outstanding.decrementAndGet();
+            }
+        }
+        if (exception != null) {
+            throw exception;
+        }
+        if (result == null && tried.isEmpty()) {
+            throw new IllegalStateException("No delegates available");
+        }
+        return result;
+    }
+
+    /**
+     * @param asyncCall
+     * @param repeatable        whether the call may be repeated after it was sent
+     * @param tried
+     * @param completableFuture
+     * @param <T>
+     */
+    private <T> void executeAsync(AsyncCall<T> asyncCall, boolean repeatable, Set<Delegate> tried, CompletableFuture<T> completableFuture) {
+        Delegate delegate;
+        synchronized (tried) {
+            delegate = tried.size() < maxAttempts ? select(tried) : null;
+            if (delegate == null) {
+                completableFuture.completeExceptionally(new IllegalStateException("No delegates available"));
+                return;
+            }
+            tried.add(delegate);
+        }
+        delegate.outstanding.incrementAndGet();
+        long start = System.nanoTime();
+        CompletableFuture<T> attempt;
+        try {
+            attempt = asyncCall.call(delegate.node);
+        } catch (Throwable t) {
+            attempt = new CompletableFuture<>();
+            attempt.completeExceptionally(t);
+        }
+        attempt.whenComplete((result, t) -> {
+            delegate.outstanding.decrementAndGet();
+            Throwable cause = unwrap(t);
+            if (cause == null && !isUnavailable(result)) {
+                onSuccess(delegate, System.nanoTime() - start);
+                completableFuture.complete(result);
+                return;
+            }
+            if (cause != null && !(cause instanceof IOException)) {
+                completableFuture.completeExceptionally(cause);
+                return;
+            }
+            onFailure(delegate);
+            boolean retry;
+            synchronized (tried) {
+                retry = (cause == null || repeatable || isNotSent(cause)) && tried.size() < maxAttempts && select(tried) != null;
+            }
+            if (retry) {
+                executeAsync(asyncCall, repeatable, tried, completableFuture);
+            } else if (cause != null) {
+                completableFuture.completeExceptionally(cause);
+            } else {
+                completableFuture.complete(result);
+            }
+        });
+    }
+
+    /**
+     * Power of two choices over the delegates that are not ejected. When every remaining delegate is ejected, the
+     * one whose ejection expires first is used so calls still make progress.
+     *
+     * @param excluded
+     * @return
+     */
+    private Delegate select(Set<Delegate> excluded) {
+        List<Delegate> delegates = this.delegates;
+        long now = System.currentTimeMillis();
+        List<Delegate> candidates = new ArrayList<>(delegates.size());
+        Delegate fallback = null;
+        for (Delegate delegate : delegates) {
+            if (excluded.contains(delegate)) {
+                continue;
+            }
+            if (delegate.ejectedUntil <= now) {
+                candidates.add(delegate);
+            } else if (fallback == null || delegate.ejectedUntil < fallback.ejectedUntil) {
+                fallback = delegate;
+            }
+        }
+        if (candidates.isEmpty()) {
+            return fallback;
+        }
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        Delegate a = candidates.get(first);
+        Delegate b = candidates.get(second);
+        return a.getScore() <= b.getScore() ? a : b;
+    }
+
+    /**
+     * @param delegate
+     * @param latency nanoseconds
+     */
+    private void onSuccess(Delegate delegate, long latency) {
+        delegate.consecutiveFailures.set(0);
+        delegate.ejectedUntil = 0;
+        double ewmaLatency = delegate.ewmaLatency;
+        delegate.ewmaLatency = ewmaLatency + EWMA_WEIGHT * (latency - ewmaLatency);
+        delegate.lastUpdate = System.nanoTime();
+    }
+
+    /**
+     * @param delegate
+     */
+    private void onFailure(Delegate delegate) {
+        int failures = Math.min(delegate.consecutiveFailures.incrementAndGet(), MAX_EJECTION_SHIFT + 1);
+        delegate.ejectedUntil = System.currentTimeMillis() + (ejectionTime << (failures - 1));
+    }
+
+    /**
+     * @param result
+     * @return
+     */
+    private static boolean isUnavailable(Object result) {
+        Receipt receipt = null;
+        if (result instanceof Receipt) {
+            receipt = (Receipt) result;
+        } else if (result instanceof Result) {
+            receipt = ((Result<?>) result).getReceipt();
+        }
+        return receipt != null && Receipt.Status.UNABLE_TO_CONNECT_TO_DELEGATE.equals(receipt.getStatus());
+    }
+
+    /**
+     * Whether the failure happened while connecting, so the request cannot have reached the delegate. Covers the
+     * Apache clients, which report connect timeouts and pool timeouts as {@link ConnectTimeoutException}, and the JDK
+     * client, whose {@code HttpConnectTimeoutException} is matched by name as it needs Java 11.
+     *
+     * @param t
+     * @return
+     */
+    private static boolean isNotSent(Throwable t) {
+        return t instanceof ConnectException
+                || t instanceof ConnectTimeoutException
+                || t instanceof NoRouteToHostException
+                || t instanceof UnknownHostException
+                || t.getClass().getName().equals("java.net.http.HttpConnectTimeoutException");
+    }
+
+    /**
+     * @param t
+     * @return
+     */
+    private static Throwable unwrap(Throwable t) {
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t;
+    }
+
+    /**
+     * @param node
+     * @return
+     */
+    private static String getKey(Node node) {
+        if (node.getHttpEndpoint() == null) {
+            return node.getAddress();
+        }
+        return node.getAddress() + "@" + node.getHttpEndpoint().getHost() + ":" + node.getHttpEndpoint().getPort();
+    }
+}
@@ -0,0 +1,118 @@
+package dispatchlabs.services;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import dispatchlabs.states.Receipt;
+
+/**
+ * Receipts of transactions in a {@link Receipt#isTerminal() terminal} state, keyed by transaction hash. A terminal
+ * receipt never changes, so it is served from here instead of asking a node again. The cache is bounded by an
+ * estimate of its memory use and evicts the least recently used receipts first. The cache keeps its own copies and
+ * hands out copies, so callers may change what they get.
+ */
+public class ReceiptCache {
+
+    /**
+     * Class level-declarations.
+     */
+    private static final int ENTRY_OVERHEAD = 160;
+    private final Cache<String, Receipt> cache;
+
+    /**
+     * @param maxBytes approximate upper bound of the memory held by cached receipts
+     */
+    public ReceiptCache(long maxBytes) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher(ReceiptCache::weigh)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Counts a hit or a miss.
+     *
+     * @param hash
+     * @return the terminal receipt, or null
+     */
+    public Receipt get(String hash) {
+        Receipt receipt = cache.getIfPresent(hash);
+        return receipt == null ? null : receipt.copy();
+    }
+
+    /**
+     * Caches the receipt if it is terminal.
+     *
+     * @param hash
+     * @param receipt
+     * @return the receipt passed in
+     */
+    public Receipt put(String hash, Receipt receipt) {
+        if (receipt != null && receipt.isTerminal()) {
+            cache.put(hash, receipt.copy());
+        }
+        return receipt;
+    }
+
+    /**
+     * @param hash
+     */
+    public void invalidate(String hash) {
+        cache.invalidate(hash);
+    }
+
+    /**
+     *
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    /**
+     * @return
+     */
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    /**
+     * @return
+     */
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    /**
+     * @return hit, miss and eviction counters
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Rough size in bytes: a fixed overhead plus two bytes per character of the key and the string fields.
+     *
+     * @param hash
+     * @param receipt
+     * @return
+     */
+    private static int weigh(String hash, Receipt receipt) {
+        return ENTRY_OVERHEAD + 2 * (hash.length() + length(receipt.getId()) + length(receipt.getType()) + length(receipt.getStatus()) + length(receipt.getHumanReadableStatus()) + length(receipt.getNodeIp()));
+    }
+
+    /**
+     * @param string
+     * @return
+     */
+    private static int length(String string) {
+        return string == null ? 0 : string.length();
+    }
+}
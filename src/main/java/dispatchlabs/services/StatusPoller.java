@@ -0,0 +1,191 @@
+package dispatchlabs.services;
+
+import dispatchlabs.AsyncSdk;
+import dispatchlabs.states.Node;
+import dispatchlabs.states.Receipt;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Tracks pending transactions until they settle. One scheduler thread drives every watch; the status requests
+ * themselves go through {@link AsyncSdk}, so thousands of hashes can be tracked without a thread or a sleep loop each.
+ * Each hash is polled with its own exponential backoff, and watching a hash that is already being watched shares the
+ * existing poll.
+ */
+public class StatusPoller implements AutoCloseable {
+
+    /**
+     * One tracked hash.
+     */
+    private static class Watch {
+
+        /**
+         * Class level-declarations.
+         */
+        private final String hash;
+        private final Node node;
+        private final long deadline;
+        private final CompletableFuture<Receipt> completableFuture = new CompletableFuture<>();
+        private long delay;
+
+        /**
+         * @param hash
+         * @param node
+         * @param deadline
+         * @param delay
+         */
+        private Watch(String hash, Node node, long deadline, long delay) {
+            this.hash = hash;
+            this.node = node;
+            this.deadline = deadline;
+            this.delay = delay;
+        }
+    }
+
+    /**
+     * Class level-declarations.
+     */
+    private static final double BACKOFF_MULTIPLIER = 1.5;
+    private final AsyncSdk asyncSdk;
+    private final long initialDelay;
+    private final long maxDelay;
+    private final long timeout;
+    private final ScheduledExecutorService scheduledExecutorService;
+    private final ConcurrentMap<String, Watch> watches = new ConcurrentHashMap<>();
+
+    /**
+     * @param asyncSdk
+     */
+    public StatusPoller(AsyncSdk asyncSdk) {
+        this(asyncSdk, 100, 5000, 300000);
+    }
+
+    /**
+     * @param asyncSdk
+     * @param initialDelay milliseconds before the first poll of a hash
+     * @param maxDelay     upper bound of the backoff between polls
+     * @param timeout      milliseconds after which a watch fails with a {@link TimeoutException}
+     */
+    public StatusPoller(AsyncSdk asyncSdk, long initialDelay, long maxDelay, long timeout) {
+        this.asyncSdk = asyncSdk;
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+        this.timeout = timeout;
+        this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dispatchlabs-status-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Polls through the delegate router.
+     *
+     * @param hash
+     * @return a future completing with the settled receipt
+     */
+    public CompletableFuture<Receipt> watch(String hash) {
+        return watch(null, hash);
+    }
+
+    /**
+     * @param node the delegate to poll, or null to route across all delegates
+     * @param hash
+     * @return a future completing with the settled receipt. Cancelling it does not affect other watchers of the hash.
+     */
+    public CompletableFuture<Receipt> watch(Node node, String hash) {
+        Watch watch = watches.computeIfAbsent(hash, key -> {
+            Watch created = new Watch(key, node, System.currentTimeMillis() + timeout, initialDelay);
+            schedule(created);
+            return created;
+        });
+        return watch.completableFuture.thenApply(Function.identity());
+    }
+
+    /**
+     * @return
+     */
+    public int getWatchCount() {
+        return watches.size();
+    }
+
+    /**
+     * Stops polling. Outstanding futures are left incomplete.
+     */
+    @Override
+    public void close() {
+        scheduledExecutorService.shutdownNow();
+    }
+
+    /**
+     * @param watch
+     */
+    private void schedule(Watch watch) {
+        scheduledExecutorService.schedule(() -> poll(watch), watch.delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param watch
+     */
+    private void poll(Watch watch) {
+        if (System.currentTimeMillis() >= watch.deadline) {
+            complete(watch, null, new TimeoutException("Transaction " + watch.hash + " did not settle within " + timeout + " ms"));
+            return;
+        }
+        CompletableFuture<Receipt> status = watch.node == null ? asyncSdk.getStatusAsync(watch.hash) : asyncSdk.getStatusAsync(watch.node, watch.hash);
+        status.whenComplete((receipt, t) -> {
+            if (t == null && isSettled(receipt)) {
+                complete(watch, receipt, null);
+                return;
+            }
+            watch.delay = Math.min(maxDelay, (long) (watch.delay * BACKOFF_MULTIPLIER));
+            try {
+                schedule(watch);
+            } catch (Throwable rejected) {
+                // Closed.
+            }
+        });
+    }
+
+    /**
+     * @param watch
+     * @param receipt
+     * @param t
+     */
+    private void complete(Watch watch, Receipt receipt, Throwable t) {
+        watches.remove(watch.hash, watch);
+        if (t != null) {
+            watch.completableFuture.completeExceptionally(t);
+        } else {
+            watch.completableFuture.complete(receipt);
+        }
+    }
+
+    /**
+     * Pending, not yet visible on the polled delegate, or a transient node error all mean "ask again later".
+     *
+     * @param receipt
+     * @return
+     */
+    static boolean isSettled(Receipt receipt) {
+        if (receipt == null || receipt.getStatus() == null) {
+            return false;
+        }
+        switch (receipt.getStatus()) {
+            case Receipt.Status.PENDING:
+            case Receipt.Status.NOT_FOUND:
+            case Receipt.Status.UNABLE_TO_CONNECT_TO_DELEGATE:
+            case Receipt.Status.INTERNAL_ERROR:
+                return false;
+            default:
+                return true;
+        }
+    }
+}
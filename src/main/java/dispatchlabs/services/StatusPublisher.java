@@ -0,0 +1,383 @@
+package dispatchlabs.services;
+
+import dispatchlabs.AsyncSdk;
+import dispatchlabs.states.Node;
+import dispatchlabs.states.Receipt;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reactive Streams {@link Publisher} of transaction status transitions. Each tracked hash is reported when it is first
+ * seen {@link Receipt.Status#PENDING} and again when it settles; transient answers such as NOT_FOUND are not reported.
+ * Polling is driven by demand: a subscription never has more status requests in flight than it has outstanding demand,
+ * so a slow subscriber slows the polling instead of growing a queue. Hashes are tracked for the subscribers present
+ * when {@link #track(Node, String)} is called, each with its own backoff, and dropped once they exceed the timeout.
+ * All signals are delivered on one scheduler thread. Each {@link Update} carries the hash it is about and a receipt of
+ * its own.
+ */
+public class StatusPublisher implements Publisher<StatusPublisher.Update>, AutoCloseable {
+
+    /**
+     * A status transition of one tracked hash.
+     */
+    public static class Update {
+
+        /**
+         * Class level-declarations.
+         */
+        private final String hash;
+        private final Receipt receipt;
+
+        /**
+         * @param hash
+         * @param receipt
+         */
+        public Update(String hash, Receipt receipt) {
+            this.hash = hash;
+            this.receipt = receipt;
+        }
+
+        /**
+         * @return
+         */
+        public String getHash() {
+            return hash;
+        }
+
+        /**
+         * @return
+         */
+        public Receipt getReceipt() {
+            return receipt;
+        }
+
+        /**
+         * @return
+         */
+        @Override
+        public String toString() {
+            return hash + " " + receipt;
+        }
+    }
+
+    /**
+     * One hash as seen by one subscription.
+     */
+    private static class Entry {
+
+        /**
+         * Class level-declarations.
+         */
+        private final String hash;
+        private final Node node;
+        private final long deadline;
+        private long delay;
+        private long due;
+        private String status;
+
+        /**
+         * @param hash
+         * @param node
+         * @param deadline
+         * @param delay
+         * @param due
+         */
+        private Entry(String hash, Node node, long deadline, long delay, long due) {
+            this.hash = hash;
+            this.node = node;
+            this.deadline = deadline;
+            this.delay = delay;
+            this.due = due;
+        }
+    }
+
+    /**
+     * Subscription state, confined to the scheduler thread.
+     */
+    private class StatusSubscription implements Subscription {
+
+        /**
+         * Class level-declarations.
+         */
+        private final Subscriber<? super Update> subscriber;
+        private final PriorityQueue<Entry> entries = new PriorityQueue<>(Comparator.comparingLong((Entry entry) -> entry.due));
+        private long demand;
+        private int inFlight;
+        private boolean done;
+        private ScheduledFuture<?> wakeUp;
+        private long wakeUpAt;
+
+        /**
+         * @param subscriber
+         */
+        private StatusSubscription(Subscriber<? super Update> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * @param n
+         */
+        @Override
+        public void request(long n) {
+            execute(() -> {
+                if (done) {
+                    return;
+                }
+                if (n <= 0) {
+                    stop();
+                    subscriber.onError(new IllegalArgumentException("Rule 3.9: request must be positive, not " + n));
+                    return;
+                }
+                demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                drain();
+            });
+        }
+
+        /**
+         *
+         */
+        @Override
+        public void cancel() {
+            execute(this::stop);
+        }
+
+        /**
+         * @param entry
+         */
+        private void add(Entry entry) {
+            if (!done) {
+                entries.add(entry);
+                drain();
+            }
+        }
+
+        /**
+         * Starts as many due polls as the outstanding demand allows and wakes up for the next one.
+         */
+        private void drain() {
+            long now = System.currentTimeMillis();
+            while (!done && inFlight < demand && !entries.isEmpty() && entries.peek().due <= now) {
+                Entry entry = entries.poll();
+                if (now < entry.deadline) {
+                    poll(entry);
+                }
+            }
+            if (done) {
+                return;
+            }
+            if (completed && entries.isEmpty() && inFlight == 0) {
+                stop();
+                subscriber.onComplete();
+                return;
+            }
+            if (inFlight < demand && !entries.isEmpty()) {
+                scheduleWakeUp(entries.peek().due, now);
+            }
+        }
+
+        /**
+         * @param entry
+         */
+        private void poll(Entry entry) {
+            inFlight++;
+            CompletableFuture<Receipt> status = entry.node == null ? asyncSdk.getStatusAsync(entry.hash) : asyncSdk.getStatusAsync(entry.node, entry.hash);
+            status.whenComplete((receipt, t) -> execute(() -> onStatus(entry, receipt, t)));
+        }
+
+        /**
+         * @param entry
+         * @param receipt
+         * @param t
+         */
+        private void onStatus(Entry entry, Receipt receipt, Throwable t) {
+            inFlight--;
+            if (done) {
+                return;
+            }
+            if (t == null && isReportable(receipt) && !receipt.getStatus().equals(entry.status)) {
+                entry.status = receipt.getStatus();
+                demand--;
+                try {
+                    // Subscribers get a receipt of their own, never one the SDK still holds.
+                    subscriber.onNext(new Update(entry.hash, receipt.copy()));
+                } catch (Throwable throwable) {
+                    // Rule 2.13: a throwing subscriber is treated as cancelled.
+                    stop();
+                    return;
+                }
+                if (StatusPoller.isSettled(receipt)) {
+                    drain();
+                    return;
+                }
+            }
+            entry.delay = Math.min(maxDelay, (long) (entry.delay * BACKOFF_MULTIPLIER));
+            entry.due = System.currentTimeMillis() + entry.delay;
+            if (entry.due < entry.deadline) {
+                entries.add(entry);
+            }
+            drain();
+        }
+
+        /**
+         * @param due
+         * @param now
+         */
+        private void scheduleWakeUp(long due, long now) {
+            if (wakeUp != null) {
+                if (wakeUpAt <= due) {
+                    return;
+                }
+                wakeUp.cancel(false);
+            }
+            wakeUpAt = due;
+            try {
+                wakeUp = scheduledExecutorService.schedule(() -> {
+                    wakeUp = null;
+                    drain();
+                }, due - now, TimeUnit.MILLISECONDS);
+            } catch (Throwable rejected) {
+                // Closed.
+            }
+        }
+
+        /**
+         * Stops the subscription without signalling the subscriber.
+         */
+        private void stop() {
+            done = true;
+            entries.clear();
+            if (wakeUp != null) {
+                wakeUp.cancel(false);
+                wakeUp = null;
+            }
+            subscriptions.remove(this);
+        }
+    }
+
+    /**
+     * Class level-declarations.
+     */
+    private static final double BACKOFF_MULTIPLIER = 1.5;
+    private final AsyncSdk asyncSdk;
+    private final long initialDelay;
+    private final long maxDelay;
+    private final long timeout;
+    private final ScheduledExecutorService scheduledExecutorService;
+    private final List<StatusSubscription> subscriptions = new ArrayList<>();
+    private boolean completed;
+
+    /**
+     * @param asyncSdk
+     */
+    public StatusPublisher(AsyncSdk asyncSdk) {
+        this(asyncSdk, 100, 5000, 300000);
+    }
+
+    /**
+     * @param asyncSdk
+     * @param initialDelay milliseconds before the first poll of a hash
+     * @param maxDelay     upper bound of the backoff between polls
+     * @param timeout      milliseconds after which an unsettled hash is dropped
+     */
+    public StatusPublisher(AsyncSdk asyncSdk, long initialDelay, long maxDelay, long timeout) {
+        this.asyncSdk = asyncSdk;
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+        this.timeout = timeout;
+        this.scheduledExecutorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dispatchlabs-status-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param subscriber
+     */
+    @Override
+    public void subscribe(Subscriber<? super Update> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("Rule 1.9: subscriber must not be null");
+        }
+        StatusSubscription statusSubscription = new StatusSubscription(subscriber);
+        execute(() -> {
+            subscriptions.add(statusSubscription);
+            subscriber.onSubscribe(statusSubscription);
+            statusSubscription.drain();
+        });
+    }
+
+    /**
+     * Polls through the delegate router.
+     *
+     * @param hash
+     */
+    public void track(String hash) {
+        track(null, hash);
+    }
+
+    /**
+     * @param node the delegate to poll, or null to route across all delegates
+     * @param hash
+     */
+    public void track(Node node, String hash) {
+        execute(() -> {
+            long now = System.currentTimeMillis();
+            for (StatusSubscription statusSubscription : new ArrayList<>(subscriptions)) {
+                statusSubscription.add(new Entry(hash, node, now + timeout, initialDelay, now + initialDelay));
+            }
+        });
+    }
+
+    /**
+     * No more hashes will be tracked; subscriptions complete once their hashes have settled or timed out.
+     */
+    public void complete() {
+        execute(() -> {
+            completed = true;
+            for (StatusSubscription statusSubscription : new ArrayList<>(subscriptions)) {
+                statusSubscription.drain();
+            }
+        });
+    }
+
+    /**
+     * Stops polling. Subscribers receive no further signals.
+     */
+    @Override
+    public void close() {
+        scheduledExecutorService.shutdownNow();
+    }
+
+    /**
+     * @param runnable
+     */
+    private void execute(Runnable runnable) {
+        try {
+            scheduledExecutorService.execute(runnable);
+        } catch (Throwable rejected) {
+            // Closed.
+        }
+    }
+
+    /**
+     * Pending and settled statuses are reported; the transient ones StatusPoller keeps polling through are not.
+     *
+     * @param receipt
+     * @return
+     */
+    private static boolean isReportable(Receipt receipt) {
+        return receipt != null && receipt.getStatus() != null && (Receipt.Status.PENDING.equals(receipt.getStatus()) || StatusPoller.isSettled(receipt));
+    }
+}
@@ -0,0 +1,88 @@
+package dispatchlabs.states;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+import dispatchlabs.utils.Hex;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Immutable fixed-length byte value serialized as lowercase hex. The hash code is computed once and the hex form on
+ * first use, so instances are cheap to use as map keys and to print repeatedly.
+ */
+public abstract class AFixedBytes implements Serializable {
+
+    /**
+     * Class level-declarations.
+     */
+    private static final long serialVersionUID = 6520843914326795170L;
+    final byte[] bytes;
+    private final int hashCode;
+    private transient volatile String hex;
+
+    /**
+     * @param bytes owned by this instance from now on
+     * @param length
+     */
+    AFixedBytes(byte[] bytes, int length) {
+        if (bytes.length != length) {
+            throw new IllegalArgumentException(getClass().getSimpleName() + " must be " + length + " bytes, not " + bytes.length);
+        }
+        this.bytes = bytes;
+        this.hashCode = Arrays.hashCode(bytes);
+    }
+
+    /**
+     * @return a copy of the bytes
+     */
+    public byte[] toByteArray() {
+        return bytes.clone();
+    }
+
+    /**
+     * Copies the bytes into the given array without allocating.
+     *
+     * @param out
+     * @param offset
+     */
+    public void copyTo(byte[] out, int offset) {
+        System.arraycopy(bytes, 0, out, offset, bytes.length);
+    }
+
+    /**
+     * @return
+     */
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (object == null || object.getClass() != getClass()) {
+            return false;
+        }
+        AFixedBytes other = (AFixedBytes) object;
+        return hashCode == other.hashCode && Arrays.equals(bytes, other.bytes);
+    }
+
+    /**
+     * @return
+     */
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    /**
+     * @return the lowercase hex form
+     */
+    @JsonValue
+    @Override
+    public String toString() {
+        String hex = this.hex;
+        if (hex == null) {
+            hex = Hex.encode(bytes);
+            this.hex = hex;
+        }
+        return hex;
+    }
+}
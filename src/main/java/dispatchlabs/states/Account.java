@@ -1,6 +1,6 @@
 package dispatchlabs.states;
 
-import dispatchlabs.crypto.Crypto;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import dispatchlabs.crypto.Key;
 import dispatchlabs.utils.AJson;
 import dispatchlabs.utils.Utils;
@@ -21,6 +21,10 @@ public class Account extends AJson {
     private long balance;
     private Timestamp updated;
     private Timestamp created;
+    @JsonIgnore
+    private transient volatile Key key;
+    @JsonIgnore
+    private transient volatile Address addressValue;
 
     /**
      *
@@ -36,6 +40,22 @@ public class Account extends AJson {
      */
     public void setPrivateKey(String privateKey) {
         this.privateKey = privateKey;
+        this.key = null;
+    }
+
+    /**
+     * The signing key of this account, derived from the private key on first use and reused afterwards.
+     *
+     * @return
+     */
+    @JsonIgnore
+    public Key getKey() {
+        Key key = this.key;
+        if (key == null) {
+            key = new Key(privateKey);
+            this.key = key;
+        }
+        return key;
     }
 
     /**
@@ -52,6 +72,20 @@ public class Account extends AJson {
      */
     public void setAddress(String address) {
         this.address = address;
+        this.addressValue = null;
+    }
+
+    /**
+     * @return the address, or null if not set
+     */
+    @JsonIgnore
+    public Address getAddressValue() {
+        Address addressValue = this.addressValue;
+        if (addressValue == null && address != null) {
+            addressValue = Address.fromHex(address);
+            this.addressValue = addressValue;
+        }
+        return addressValue;
     }
 
     /**
@@ -118,6 +152,25 @@ public class Account extends AJson {
         this.created = created;
     }
 
+    /**
+     * A copy that can be changed without affecting this account; the derived key and address are shared, as they are
+     * immutable.
+     *
+     * @return
+     */
+    public Account copy() {
+        Account account = new Account();
+        account.privateKey = privateKey;
+        account.address = address;
+        account.name = name;
+        account.balance = balance;
+        account.updated = updated == null ? null : (Timestamp) updated.clone();
+        account.created = created == null ? null : (Timestamp) created.clone();
+        account.key = key;
+        account.addressValue = addressValue;
+        return account;
+    }
+
     /**
      *
      * @return
@@ -129,19 +182,12 @@ public class Account extends AJson {
 
         System.out.println(Utils.toHexString(publicKey));
 
-
-        byte[] hashablePublicKey = new byte[publicKey.length-1];
-        for (int i=1; i<publicKey.length; i++) {
-            hashablePublicKey[i-1] = publicKey[i];
-        }
-        byte[] hash = Crypto.hash(hashablePublicKey);
-        byte[] address = new byte[20];
-        for (int i=0; i<address.length; i++) {
-            address[i] = hash[i+12];
-        }
+        // The key has already hashed its public key into the address.
         Account account = new Account();
-        account.setAddress(Utils.toHexString(address));
+        account.setAddress(key.getAddress());
         account.setPrivateKey(key.getPrivateKey());
+        account.key = key;
+        account.addressValue = key.getAddressValue();
         return account;
     }
 }
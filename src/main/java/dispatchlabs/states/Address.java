@@ -0,0 +1,40 @@
+package dispatchlabs.states;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import dispatchlabs.utils.Hex;
+
+/**
+ * A 20 byte account or contract address.
+ */
+public final class Address extends AFixedBytes {
+
+    /**
+     * Class level-declarations.
+     */
+    private static final long serialVersionUID = 2954129436577613061L;
+    public static final int LENGTH = 20;
+
+    /**
+     * @param bytes
+     */
+    private Address(byte[] bytes) {
+        super(bytes, LENGTH);
+    }
+
+    /**
+     * @param bytes copied
+     * @return
+     */
+    public static Address of(byte[] bytes) {
+        return new Address(bytes.clone());
+    }
+
+    /**
+     * @param hex
+     * @return
+     */
+    @JsonCreator
+    public static Address fromHex(String hex) {
+        return new Address(Hex.decode(hex));
+    }
+}
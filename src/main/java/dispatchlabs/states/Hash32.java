@@ -0,0 +1,50 @@
+package dispatchlabs.states;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import dispatchlabs.utils.Hex;
+
+/**
+ * A 32 byte hash, such as a transaction hash.
+ */
+public final class Hash32 extends AFixedBytes {
+
+    /**
+     * Class level-declarations.
+     */
+    private static final long serialVersionUID = -3420951436205723337L;
+    public static final int LENGTH = 32;
+
+    /**
+     * @param bytes
+     */
+    private Hash32(byte[] bytes) {
+        super(bytes, LENGTH);
+    }
+
+    /**
+     * @param bytes copied
+     * @return
+     */
+    public static Hash32 of(byte[] bytes) {
+        return new Hash32(bytes.clone());
+    }
+
+    /**
+     * @param hex
+     * @return
+     */
+    @JsonCreator
+    public static Hash32 fromHex(String hex) {
+        return new Hash32(Hex.decode(hex));
+    }
+
+    /**
+     * Takes ownership of the array without copying; for hashes freshly computed by the SDK.
+     *
+     * @param bytes
+     * @return
+     */
+    static Hash32 wrap(byte[] bytes) {
+        return new Hash32(bytes);
+    }
+}
@@ -1,5 +1,6 @@
 package dispatchlabs.states;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import dispatchlabs.utils.AJson;
 
 import java.sql.Timestamp;
@@ -169,6 +170,23 @@ public class Receipt extends AJson {
         this.created = created;
     }
 
+    /**
+     * A copy that can be changed without affecting this receipt.
+     *
+     * @return
+     */
+    public Receipt copy() {
+        Receipt receipt = new Receipt();
+        receipt.id = id;
+        receipt.type = type;
+        receipt.status = status;
+        receipt.humanReadableStatus = humanReadableStatus;
+        receipt.nodeIp = nodeIp;
+        receipt.updated = updated == null ? null : (Timestamp) updated.clone();
+        receipt.created = created == null ? null : (Timestamp) created.clone();
+        return receipt;
+    }
+
     /**
      *
      * @return
@@ -179,4 +197,25 @@ public class Receipt extends AJson {
         }
         return status.equals(Status.OK);
     }
+
+    /**
+     * Whether the status is final for a transaction, so the receipt can never change.
+     *
+     * @return
+     */
+    @JsonIgnore
+    public boolean isTerminal() {
+        if (status == null) {
+            return false;
+        }
+        switch (status) {
+            case Status.OK:
+            case Status.INVALID_TRANSACTION:
+            case Status.INSUFFICIENT_TOKENS:
+            case Status.DUPLICATE_TRANSACTION:
+                return true;
+            default:
+                return false;
+        }
+    }
 }
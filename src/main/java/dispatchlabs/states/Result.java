@@ -0,0 +1,264 @@
+package dispatchlabs.states;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import dispatchlabs.utils.AJson;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A node response: the {@link Receipt} plus its typed {@code data} payload.
+ */
+public class Result<T> extends AJson {
+
+    /**
+     * Class level-declarations.
+     */
+    private static final long serialVersionUID = 1487086777069117118L;
+    private Receipt receipt;
+    private T data;
+
+    /**
+     *
+     */
+    public Result() {
+    }
+
+    /**
+     *
+     * @param receipt
+     * @param data
+     */
+    public Result(Receipt receipt, T data) {
+        this.receipt = receipt;
+        this.data = data;
+    }
+
+    /**
+     *
+     * @return
+     */
+    public Receipt getReceipt() {
+        return receipt;
+    }
+
+    /**
+     *
+     * @param receipt
+     */
+    public void setReceipt(Receipt receipt) {
+        this.receipt = receipt;
+    }
+
+    /**
+     * The decoded payload, or null when the receipt is not OK.
+     * @return
+     */
+    public T getData() {
+        return data;
+    }
+
+    /**
+     *
+     * @param data
+     */
+    public void setData(T data) {
+        this.data = data;
+    }
+
+    /**
+     *
+     * @param inputStream
+     * @param theClass
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    public static <T> Result<T> read(InputStream inputStream, Class<T> theClass) throws Exception {
+        return read(inputStream, AJson.readerFor(theClass));
+    }
+
+    /**
+     *
+     * @param inputStream
+     * @param theClass
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    public static <T> Result<List<T>> readList(InputStream inputStream, Class<T> theClass) throws Exception {
+        return read(inputStream, AJson.listReaderFor(theClass));
+    }
+
+    /**
+     * Decodes a list response lazily: the elements of {@code data} are bound one at a time as the returned stream is
+     * consumed, so memory stays flat however long the list is. Receipt fields after {@code data} are not read, and
+     * should {@code data} arrive before {@code status} it is buffered first. The input stream is closed when the
+     * returned stream is exhausted or closed, or right away if there is no data to stream.
+     *
+     * @param inputStream
+     * @param theClass
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    public static <T> Result<Stream<T>> readStream(InputStream inputStream, Class<T> theClass) throws Exception {
+        JsonParser jsonParser = AJson.createParser(inputStream);
+        try {
+            if (jsonParser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(jsonParser, "Expected a JSON object");
+            }
+            ObjectNode receiptNode = JsonNodeFactory.instance.objectNode();
+            TokenBuffer deferredData = null;
+            while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = jsonParser.getCurrentName();
+                jsonParser.nextToken();
+                if (!"data".equals(fieldName)) {
+                    receiptNode.set(fieldName, jsonParser.readValueAsTree());
+                    continue;
+                }
+                JsonNode status = receiptNode.get("status");
+                if (status == null) {
+                    deferredData = new TokenBuffer(jsonParser);
+                    deferredData.copyCurrentStructure(jsonParser);
+                } else if (Receipt.Status.OK.equals(status.asText()) && jsonParser.getCurrentToken() == JsonToken.START_ARRAY) {
+                    Receipt receipt = AJson.readerFor(Receipt.class).readValue(receiptNode);
+                    return new Result<>(receipt, stream(AJson.readerFor(theClass), jsonParser));
+                } else {
+                    jsonParser.skipChildren();
+                }
+            }
+            Receipt receipt = AJson.readerFor(Receipt.class).readValue(receiptNode);
+            if (deferredData != null && receipt.isOk()) {
+                JsonParser deferredParser = deferredData.asParser();
+                if (deferredParser.nextToken() == JsonToken.START_ARRAY) {
+                    jsonParser.close();
+                    return new Result<>(receipt, stream(AJson.readerFor(theClass), deferredParser));
+                }
+            }
+            jsonParser.close();
+            return new Result<>(receipt, null);
+        } catch (Throwable t) {
+            jsonParser.close();
+            throw t;
+        }
+    }
+
+    /**
+     * @param objectReader binds one element
+     * @param jsonParser   positioned on the array; closed once the array is exhausted or the stream is closed
+     * @param <T>
+     * @return
+     */
+    private static <T> Stream<T> stream(ObjectReader objectReader, JsonParser jsonParser) {
+        Iterator<T> iterator = new Iterator<T>() {
+
+            /**
+             * Class level-declarations.
+             */
+            private boolean advanced;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                if (!advanced && !exhausted) {
+                    try {
+                        JsonToken jsonToken = jsonParser.nextToken();
+                        exhausted = jsonToken == null || jsonToken == JsonToken.END_ARRAY;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    advanced = true;
+                    if (exhausted) {
+                        close(jsonParser);
+                    }
+                }
+                return !exhausted;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                advanced = false;
+                try {
+                    return objectReader.readValue(jsonParser);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false).onClose(() -> close(jsonParser));
+    }
+
+    /**
+     * @param jsonParser
+     */
+    private static void close(JsonParser jsonParser) {
+        try {
+            jsonParser.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decodes a response in a single pass. The receipt fields are collected as they stream by and {@code data} is
+     * bound straight from the parser with the given reader. Should {@code data} arrive before {@code status}, its
+     * tokens are buffered and bound only if the receipt turns out OK.
+     *
+     * @param inputStream
+     * @param objectReader
+     * @param <T>
+     * @return
+     * @throws Exception
+     */
+    private static <T> Result<T> read(InputStream inputStream, ObjectReader objectReader) throws Exception {
+        try (JsonParser jsonParser = AJson.createParser(inputStream)) {
+            if (jsonParser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(jsonParser, "Expected a JSON object");
+            }
+            ObjectNode receiptNode = JsonNodeFactory.instance.objectNode();
+            TokenBuffer deferredData = null;
+            T data = null;
+            while (jsonParser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = jsonParser.getCurrentName();
+                jsonParser.nextToken();
+                if (!"data".equals(fieldName)) {
+                    receiptNode.set(fieldName, jsonParser.readValueAsTree());
+                    continue;
+                }
+                JsonNode status = receiptNode.get("status");
+                if (status == null) {
+                    deferredData = new TokenBuffer(jsonParser);
+                    deferredData.copyCurrentStructure(jsonParser);
+                } else if (Receipt.Status.OK.equals(status.asText())) {
+                    data = objectReader.readValue(jsonParser);
+                } else {
+                    jsonParser.skipChildren();
+                }
+            }
+            Receipt receipt = AJson.readerFor(Receipt.class).readValue(receiptNode);
+            if (deferredData != null && receipt.isOk()) {
+                data = objectReader.readValue(deferredData.asParser());
+            }
+            return new Result<>(receipt, data);
+        }
+    }
+}
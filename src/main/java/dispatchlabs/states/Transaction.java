@@ -1,12 +1,11 @@
 package dispatchlabs.states;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import dispatchlabs.crypto.Crypto;
+import dispatchlabs.crypto.Key;
 import dispatchlabs.utils.AJson;
 import dispatchlabs.utils.Utils;
 
-import javax.xml.bind.DatatypeConverter;
-import java.io.ByteArrayOutputStream;
-
 /**
  * Transaction
  */
@@ -41,6 +40,8 @@ public class Transaction extends AJson {
     // Transients
     private String fromName;
     private String toName;
+    @JsonIgnore
+    private transient volatile Hash32 hashValue;
 
     /**
      *
@@ -56,6 +57,20 @@ public class Transaction extends AJson {
      */
     public void setHash(String hash) {
         this.hash = hash;
+        this.hashValue = null;
+    }
+
+    /**
+     * @return the hash, or null if not set
+     */
+    @JsonIgnore
+    public Hash32 getHashValue() {
+        Hash32 hashValue = this.hashValue;
+        if (hashValue == null && hash != null) {
+            hashValue = Hash32.fromHex(hash);
+            this.hashValue = hashValue;
+        }
+        return hashValue;
     }
 
     /**
@@ -258,32 +273,105 @@ public class Transaction extends AJson {
      * @throws Exception
      */
     public static Transaction create(String privateKey, String from, String to, byte type, String value, String code, String method, String params, long time) throws Exception {
-        byte[] privateKeyBytes = DatatypeConverter.parseHexBinary(privateKey);
-        byte[] typeBytes = {type};
-        byte[] fromBytes = DatatypeConverter.parseHexBinary(from);
-        byte[] toBytes = DatatypeConverter.parseHexBinary(to);
-        byte[] valueBytes = value.getBytes();
-        byte[] codeBytes = DatatypeConverter.parseHexBinary(code);
-        byte[] methodBytes = method.getBytes();
-        byte[] paramsBytes = params.getBytes();
-        byte[] timeBytes = Utils.longToBytes(time);
-
-        // Hash bytes.
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream( );
-        byteArrayOutputStream.write(typeBytes);
-        byteArrayOutputStream.write(fromBytes);
-        byteArrayOutputStream.write(toBytes);
-        byteArrayOutputStream.write(valueBytes);
-        byteArrayOutputStream.write(codeBytes);
-        byteArrayOutputStream.write(methodBytes);
-        byteArrayOutputStream.write(paramsBytes);
-        byteArrayOutputStream.write(timeBytes);
-        byte[] hashBytes = Crypto.hash(byteArrayOutputStream.toByteArray());
-        byte[] signatureBytes = Crypto.sign(privateKeyBytes, hashBytes);
-
-        // Create transaction.
+        return create(new Key(privateKey), from, to, type, value, code, method, params, time);
+    }
+
+    /**
+     * Signs with an already derived key, avoiding the public key derivation of {@link #create(String, String, String, byte, String, String, String, String, long)}.
+     *
+     * @param key
+     * @param from
+     * @param to
+     * @param type
+     * @param value
+     * @param code
+     * @param method
+     * @param params
+     * @param time
+     * @return
+     * @throws Exception
+     */
+    public static Transaction create(Key key, String from, String to, byte type, String value, String code, String method, String params, long time) throws Exception {
+        return createUnsigned(from, to, type, value, code, method, params, time).sign(key);
+    }
+
+    /**
+     * Hashes the addresses from their bytes rather than decoding them from hex. Both addresses are required; use
+     * {@link #create(Key, String, String, byte, String, String, String, String, long)} for a transaction without a
+     * recipient, such as a contract deployment, or with addresses that are not 20 bytes.
+     *
+     * @param key
+     * @param from
+     * @param to
+     * @param type
+     * @param value
+     * @param code
+     * @param method
+     * @param params
+     * @param time
+     * @return
+     * @throws IllegalArgumentException if from or to is null
+     * @throws Exception
+     */
+    public static Transaction create(Key key, Address from, Address to, byte type, String value, String code, String method, String params, long time) throws Exception {
+        if (from == null || to == null) {
+            throw new IllegalArgumentException("from and to must not be null; use the String overload for a transaction without a recipient");
+        }
+        int size = 1 + Address.LENGTH + Address.LENGTH + TransactionPreimage.utf8Length(value) + TransactionPreimage.hexLength(code)
+                + TransactionPreimage.utf8Length(method) + TransactionPreimage.utf8Length(params) + Long.BYTES;
+        byte[] hashBytes = new byte[Hash32.LENGTH];
+        TransactionPreimage.get().reset(size)
+                .putByte(type)
+                .putBytes(from)
+                .putBytes(to)
+                .putUtf8(value)
+                .putHex(code)
+                .putUtf8(method)
+                .putUtf8(params)
+                .putLong(time)
+                .hash(hashBytes, 0);
+        return createUnsigned(from.toString(), to.toString(), type, value, code, method, params, time).sign(key, hashBytes);
+    }
+
+    /**
+     * A copy that can be changed without affecting this transaction.
+     *
+     * @return
+     */
+    public Transaction copy() {
+        Transaction transaction = new Transaction();
+        transaction.hash = hash;
+        transaction.type = type;
+        transaction.from = from;
+        transaction.to = to;
+        transaction.value = value;
+        transaction.code = code;
+        transaction.method = method;
+        transaction.params = params;
+        transaction.time = time;
+        transaction.signature = signature;
+        transaction.hertz = hertz;
+        transaction.fromName = fromName;
+        transaction.toName = toName;
+        transaction.hashValue = hashValue;
+        return transaction;
+    }
+
+    /**
+     * A transaction with every field but the hash and signature set; see {@link #sign(Key)}.
+     *
+     * @param from
+     * @param to
+     * @param type
+     * @param value
+     * @param code
+     * @param method
+     * @param params
+     * @param time
+     * @return
+     */
+    public static Transaction createUnsigned(String from, String to, byte type, String value, String code, String method, String params, long time) {
         Transaction transaction = new Transaction();
-        transaction.setHash(Utils.toHexString(hashBytes));
         transaction.setType(type);
         transaction.setFrom(from);
         transaction.setTo(to);
@@ -293,8 +381,46 @@ public class Transaction extends AJson {
         transaction.setMethod(method);
         transaction.setParams(params);
         transaction.setHertz("0");
-        transaction.setSignature(Utils.toHexString(signatureBytes));
-
         return transaction;
     }
+
+    /**
+     * Computes the hash of the current fields and signs it, replacing any previous hash and signature.
+     *
+     * @param key
+     * @return this
+     * @throws Exception
+     */
+    public Transaction sign(Key key) throws Exception {
+        // Hash bytes: type, from, to, value, code, method, params and time, encoded into one reused buffer.
+        int size = 1 + TransactionPreimage.hexLength(from) + TransactionPreimage.hexLength(to) + TransactionPreimage.utf8Length(value)
+                + TransactionPreimage.hexLength(code) + TransactionPreimage.utf8Length(method) + TransactionPreimage.utf8Length(params) + Long.BYTES;
+        byte[] hashBytes = new byte[Hash32.LENGTH];
+        TransactionPreimage.get().reset(size)
+                .putByte(type)
+                .putHex(from)
+                .putHex(to)
+                .putUtf8(value)
+                .putHex(code)
+                .putUtf8(method)
+                .putUtf8(params)
+                .putLong(time)
+                .hash(hashBytes, 0);
+        return sign(key, hashBytes);
+    }
+
+    /**
+     * @param key
+     * @param hashBytes the hash of this transaction's preimage
+     * @return this
+     * @throws Exception
+     */
+    Transaction sign(Key key, byte[] hashBytes) throws Exception {
+        byte[] signatureBytes = Crypto.sign(key, hashBytes);
+        Hash32 hashValue = Hash32.wrap(hashBytes);
+        setHash(hashValue.toString());
+        this.hashValue = hashValue;
+        setSignature(Utils.toHexString(signatureBytes));
+        return this;
+    }
 }
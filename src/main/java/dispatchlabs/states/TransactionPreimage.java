@@ -0,0 +1,184 @@
+package dispatchlabs.states;
+
+import dispatchlabs.crypto.Crypto;
+import dispatchlabs.utils.Hex;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reusable buffer the transaction hash preimage is encoded into. Hex fields are decoded and strings encoded straight
+ * into it, so hashing a transaction needs no intermediate arrays. Each thread reuses its own instance through
+ * {@link #get()}. The buffer grows as needed; once it has grown past {@link #MAX_RETAINED_CAPACITY}, say for a large
+ * contract, it is dropped after {@link #hash(byte[], int)} or {@link #toByteArray()} so idle threads do not keep it.
+ */
+final class TransactionPreimage {
+
+    /**
+     * Class level-declarations.
+     */
+    private static final ThreadLocal<TransactionPreimage> threadLocal = ThreadLocal.withInitial(TransactionPreimage::new);
+    private static final int DEFAULT_CAPACITY = 256;
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+    private byte[] buffer = new byte[DEFAULT_CAPACITY];
+    private int length;
+
+    /**
+     * @return this thread's instance
+     */
+    static TransactionPreimage get() {
+        return threadLocal.get();
+    }
+
+    /**
+     * Empties the buffer and makes room for a preimage of the given size.
+     *
+     * @param capacity
+     * @return this
+     */
+    TransactionPreimage reset(int capacity) {
+        if (buffer.length < capacity) {
+            buffer = new byte[Math.max(capacity, buffer.length * 2)];
+        }
+        length = 0;
+        return this;
+    }
+
+    /**
+     * @param b
+     * @return this
+     */
+    TransactionPreimage putByte(byte b) {
+        ensureCapacity(1);
+        buffer[length++] = b;
+        return this;
+    }
+
+    /**
+     * @param bytes
+     * @return this
+     */
+    TransactionPreimage putBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+        return this;
+    }
+
+    /**
+     * @param hex
+     * @return this
+     */
+    TransactionPreimage putHex(String hex) {
+        ensureCapacity(hexLength(hex));
+        length += Hex.decode(hex, buffer, length);
+        return this;
+    }
+
+    /**
+     * @param fixedBytes
+     * @return this
+     */
+    TransactionPreimage putBytes(AFixedBytes fixedBytes) {
+        return putBytes(fixedBytes.bytes);
+    }
+
+    /**
+     * @param string
+     * @return this
+     */
+    TransactionPreimage putUtf8(String string) {
+        int stringLength = string.length();
+        ensureCapacity(stringLength);
+        int start = length;
+        for (int i = 0; i < stringLength; i++) {
+            char c = string.charAt(i);
+            if (c >= 0x80) {
+                // Rare outside ASCII; let the JDK encoder handle surrogates and malformed input.
+                length = start;
+                return putBytes(string.getBytes(StandardCharsets.UTF_8));
+            }
+            buffer[length++] = (byte) c;
+        }
+        return this;
+    }
+
+    /**
+     * Little endian, as {@link dispatchlabs.utils.Utils#longToBytes(long)}.
+     *
+     * @param value
+     * @return this
+     */
+    TransactionPreimage putLong(long value) {
+        ensureCapacity(Long.BYTES);
+        for (int i = 0; i < Long.BYTES; i++) {
+            buffer[length++] = (byte) (value >>> (8 * i));
+        }
+        return this;
+    }
+
+    /**
+     * Hashes the bytes written since the last reset and empties the buffer.
+     *
+     * @param out
+     * @param offset
+     */
+    void hash(byte[] out, int offset) {
+        Crypto.hash(buffer, 0, length, out, offset);
+        release();
+    }
+
+    /**
+     * Empties the buffer.
+     *
+     * @return a copy of the bytes written since the last reset
+     */
+    byte[] toByteArray() {
+        byte[] bytes = new byte[length];
+        System.arraycopy(buffer, 0, bytes, 0, length);
+        release();
+        return bytes;
+    }
+
+    /**
+     * @param hex
+     * @return the number of bytes the hex string decodes to
+     */
+    static int hexLength(String hex) {
+        return Hex.decodedLength(hex);
+    }
+
+    /**
+     * @param string
+     * @return the length of the string in UTF-8
+     */
+    static int utf8Length(String string) {
+        int stringLength = string.length();
+        for (int i = 0; i < stringLength; i++) {
+            if (string.charAt(i) >= 0x80) {
+                return string.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        return stringLength;
+    }
+
+    /**
+     * Empties the buffer, going back to the default size if it grew too large to keep.
+     */
+    private void release() {
+        length = 0;
+        if (buffer.length > MAX_RETAINED_CAPACITY) {
+            buffer = new byte[DEFAULT_CAPACITY];
+        }
+    }
+
+    /**
+     * @param needed
+     */
+    private void ensureCapacity(int needed) {
+        if (length + needed > buffer.length) {
+            byte[] grown = new byte[Math.max(length + needed, buffer.length * 2)];
+            System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+        }
+    }
+}
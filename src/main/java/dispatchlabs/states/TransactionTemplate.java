@@ -0,0 +1,176 @@
+package dispatchlabs.states;
+
+import dispatchlabs.crypto.Key;
+
+/**
+ * Builds signed transactions that share a sender and their type, code, method and params, such as a run of payouts.
+ * The fixed fields are encoded once, as the preimage bytes that precede and follow the to and value fields, so each
+ * transaction only encodes to, value and time before hashing and signing. Templates are immutable and can be shared
+ * across threads.
+ */
+public class TransactionTemplate {
+
+    /**
+     * Class level-declarations.
+     */
+    private final Key key;
+    private final String from;
+    private final byte type;
+    private final String code;
+    private final String method;
+    private final String params;
+    private final byte[] prefix;
+    private final byte[] suffix;
+
+    /**
+     * Signs as {@code key.getAddress()}.
+     *
+     * @param key
+     * @param type
+     * @param code
+     * @param method
+     * @param params
+     */
+    public TransactionTemplate(Key key, byte type, String code, String method, String params) {
+        this(key, key.getAddress(), type, code, method, params);
+    }
+
+    /**
+     * Any hex sender is encoded as {@link Transaction#create(Key, String, String, byte, String, String, String, String, long)}
+     * encodes it, including addresses that are not {@link Address#LENGTH} bytes, such as ones read from a node.
+     *
+     * @param key
+     * @param from
+     * @param type
+     * @param code
+     * @param method
+     * @param params
+     * @throws IllegalArgumentException if from is null
+     */
+    public TransactionTemplate(Key key, String from, byte type, String code, String method, String params) {
+        if (from == null) {
+            throw new IllegalArgumentException("from must not be null");
+        }
+        this.key = key;
+        this.from = from;
+        this.type = type;
+        this.code = code;
+        this.method = method;
+        this.params = params;
+        this.prefix = TransactionPreimage.get().reset(1 + TransactionPreimage.hexLength(from))
+                .putByte(type)
+                .putHex(from)
+                .toByteArray();
+        this.suffix = TransactionPreimage.get().reset(TransactionPreimage.hexLength(code) + TransactionPreimage.utf8Length(method) + TransactionPreimage.utf8Length(params))
+                .putHex(code)
+                .putUtf8(method)
+                .putUtf8(params)
+                .toByteArray();
+    }
+
+    /**
+     * @param key
+     * @param from
+     * @param type
+     * @param code
+     * @param method
+     * @param params
+     * @throws IllegalArgumentException if from is null
+     */
+    public TransactionTemplate(Key key, Address from, byte type, String code, String method, String params) {
+        this(key, from == null ? null : from.toString(), type, code, method, params);
+    }
+
+    /**
+     * @param key
+     * @return a template for token transfers from the key's address
+     */
+    public static TransactionTemplate transferTokens(Key key) {
+        return new TransactionTemplate(key, Transaction.Type.TRANSFER_TOKENS, "", "", "");
+    }
+
+    /**
+     * @param to
+     * @param value
+     * @return
+     * @throws Exception
+     */
+    public Transaction create(String to, String value) throws Exception {
+        return create(to, value, System.currentTimeMillis());
+    }
+
+    /**
+     * @param to
+     * @param value
+     * @param time
+     * @return the signed transaction, identical to {@link Transaction#create(Key, String, String, byte, String, String, String, String, long)}
+     * @throws Exception
+     */
+    public Transaction create(String to, String value, long time) throws Exception {
+        byte[] hashBytes = new byte[Hash32.LENGTH];
+        TransactionPreimage.get().reset(prefix.length + TransactionPreimage.hexLength(to) + TransactionPreimage.utf8Length(value) + suffix.length + Long.BYTES)
+                .putBytes(prefix)
+                .putHex(to)
+                .putUtf8(value)
+                .putBytes(suffix)
+                .putLong(time)
+                .hash(hashBytes, 0);
+        Transaction transaction = Transaction.createUnsigned(from, to, type, value, code, method, params, time);
+        return transaction.sign(key, hashBytes);
+    }
+
+    /**
+     * @param to
+     * @param value
+     * @return
+     * @throws Exception
+     */
+    public Transaction create(Address to, String value) throws Exception {
+        return create(to, value, System.currentTimeMillis());
+    }
+
+    /**
+     * @param to
+     * @param value
+     * @param time
+     * @return
+     * @throws IllegalArgumentException if to is null; use {@link #create(String, String, long)} with "" for no recipient
+     * @throws Exception
+     */
+    public Transaction create(Address to, String value, long time) throws Exception {
+        if (to == null) {
+            throw new IllegalArgumentException("to must not be null; use the String overload for a transaction without a recipient");
+        }
+        byte[] hashBytes = new byte[Hash32.LENGTH];
+        TransactionPreimage.get().reset(prefix.length + Address.LENGTH + TransactionPreimage.utf8Length(value) + suffix.length + Long.BYTES)
+                .putBytes(prefix)
+                .putBytes(to)
+                .putUtf8(value)
+                .putBytes(suffix)
+                .putLong(time)
+                .hash(hashBytes, 0);
+        Transaction transaction = Transaction.createUnsigned(from, to.toString(), type, value, code, method, params, time);
+        return transaction.sign(key, hashBytes);
+    }
+
+    /**
+     * @return
+     */
+    public Key getKey() {
+        return key;
+    }
+
+    /**
+     * @return
+     */
+    public String getFrom() {
+        return from;
+    }
+
+    /**
+     * @return
+     */
+    public byte getType() {
+        return type;
+    }
+}
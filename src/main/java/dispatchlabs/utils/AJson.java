@@ -1,17 +1,28 @@
 package dispatchlabs.utils;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
-import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
 import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
 import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import dispatchlabs.states.Account;
+import dispatchlabs.states.Node;
+import dispatchlabs.states.Receipt;
+import dispatchlabs.states.Transaction;
+
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  *
@@ -19,11 +30,36 @@ import java.util.*;
 public abstract class AJson implements Serializable {
 
     /**
-     * Class level-declarations.
+     * Class level-declarations. The mapper is configured once and never mutated afterwards; readers and writers are
+     * immutable, so all of them are safe to share across threads. Jackson clones the date format per call.
      */
+    private static final ObjectMapper objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final FilterProvider emptyFilterProvider = new SimpleFilterProvider();
+    private static final FilterProvider defaultFilterProvider = new SimpleFilterProvider().addFilter("AJsonFilter", SimpleBeanPropertyFilter.serializeAll());
+    private static final ObjectWriter objectWriter = objectMapper.writer().with(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ"));
+    private static final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Class<?>, ObjectReader> listReaders = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
     @JsonIgnore
     private final List<String> omitted = new ArrayList<>();
 
+    static {
+        warmUp(Transaction.class, Receipt.class, Account.class, Node.class);
+    }
+
+    /**
+     * Builds and caches the readers and writers of the given classes ahead of first use.
+     *
+     * @param classes
+     */
+    public static void warmUp(Class<?>... classes) {
+        for (Class<?> theClass : classes) {
+            readerFor(theClass);
+            listReaderFor(theClass);
+            writerFor(theClass);
+        }
+    }
+
     /**
      *
      * @param jsonString
@@ -31,10 +67,7 @@ public abstract class AJson implements Serializable {
      * @throws Exception
      */
     public static JsonNode toJsonNode(String jsonString) throws Exception {
-        ObjectMapper mapper = new ObjectMapper();
-        JsonFactory factory = mapper.getFactory();
-        JsonParser parser = factory.createParser(jsonString);
-        return mapper.readTree(parser);
+        return objectMapper.readTree(jsonString);
     }
 
     /**
@@ -52,9 +85,7 @@ public abstract class AJson implements Serializable {
     @Override
     public String toString() {
         try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            objectMapper.setDateFormat(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ"));
-            return objectMapper.writer(new SimpleFilterProvider().addFilter("AJsonFilter", SimpleBeanPropertyFilter.serializeAllExcept(new HashSet<>(omitted)))).writeValueAsString(this);
+            return getWriter().writeValueAsString(this);
         } catch (Throwable t) {
             throw new RuntimeException(t);
         }
@@ -67,9 +98,7 @@ public abstract class AJson implements Serializable {
      */
     public static String toString(Object object) {
         try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            objectMapper.setDateFormat(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ"));
-            return objectMapper.writer(new SimpleFilterProvider()).writeValueAsString(object);
+            return objectWriter.with(emptyFilterProvider).writeValueAsString(object);
         } catch (Throwable t) {
             throw new RuntimeException(t);
         }
@@ -81,14 +110,36 @@ public abstract class AJson implements Serializable {
      */
     public String toPrettyString() {
         try {
-            ObjectMapper objectMapper = new ObjectMapper();
-            objectMapper.setDateFormat(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ"));
-            return objectMapper.writer(new SimpleFilterProvider().addFilter("AJsonFilter", SimpleBeanPropertyFilter.serializeAllExcept(new HashSet<>(omitted)))).withDefaultPrettyPrinter().writeValueAsString(this);
+            return getWriter().withDefaultPrettyPrinter().writeValueAsString(this);
         } catch (Throwable t) {
             throw new RuntimeException(t);
         }
     }
 
+    /**
+     * Serializes this object straight to the stream as UTF-8 JSON. The stream is flushed but left open.
+     *
+     * @param outputStream
+     * @throws Exception
+     */
+    public void writeTo(OutputStream outputStream) throws Exception {
+        getWriter().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writeValue(outputStream, this);
+    }
+
+    /**
+     * The cached writer of this class, with the omitted properties filtered out when there are any.
+     *
+     * @return
+     */
+    @JsonIgnore
+    protected ObjectWriter getWriter() {
+        ObjectWriter writer = writerFor(getClass());
+        if (omitted.isEmpty()) {
+            return writer;
+        }
+        return writer.with(new SimpleFilterProvider().addFilter("AJsonFilter", SimpleBeanPropertyFilter.serializeAllExcept(new HashSet<>(omitted))));
+    }
+
     /**
      *
      * @param theClass
@@ -97,9 +148,7 @@ public abstract class AJson implements Serializable {
      * @throws java.lang.Exception
      */
     public static AJson deserialize(Class theClass, String json) throws Exception {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        return (AJson) objectMapper.readValue(json, theClass);
+        return (AJson) readerFor(theClass).readValue(json);
     }
 
     /**
@@ -110,10 +159,7 @@ public abstract class AJson implements Serializable {
      * @throws Exception
      */
     public static List deserializeList(Class theClass, String json) throws Exception {
-        ObjectMapper objectMapper = new ObjectMapper();
-        objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-        JavaType javaType = objectMapper.getTypeFactory().constructCollectionType(ArrayList.class, theClass);
-        return objectMapper.readValue(json, javaType);
+        return listReaderFor(theClass).readValue(json);
     }
 
     /**
@@ -123,6 +169,54 @@ public abstract class AJson implements Serializable {
      * @throws Exception
      */
     public static Map deserializeMap(String json) throws Exception {
-        return new ObjectMapper().readValue(json, HashMap.class);
+        return readerFor(HashMap.class).readValue(json);
+    }
+
+    /**
+     *
+     * @param inputStream
+     * @return
+     * @throws Exception
+     */
+    public static JsonParser createParser(InputStream inputStream) throws Exception {
+        return objectMapper.getFactory().createParser(inputStream);
+    }
+
+    /**
+     *
+     * @param theClass
+     * @return
+     */
+    public static ObjectReader readerFor(Class<?> theClass) {
+        return readers.computeIfAbsent(theClass, objectMapper::readerFor);
+    }
+
+    /**
+     *
+     * @param theClass
+     * @return
+     */
+    public static ObjectReader listReaderFor(Class<?> theClass) {
+        return listReaders.computeIfAbsent(theClass, key -> objectMapper.readerFor(objectMapper.getTypeFactory().constructCollectionType(ArrayList.class, key)));
+    }
+
+    /**
+     *
+     * @param theClass
+     * @return
+     */
+    public static ObjectWriter writerFor(Class<?> theClass) {
+        return writers.computeIfAbsent(theClass, key -> objectWriter.forType(key).with(defaultFilterProvider));
+    }
+
+    /**
+     *
+     * @param theClass
+     * @param inputStream
+     * @return
+     * @throws Exception
+     */
+    public static AJson deserialize(Class theClass, InputStream inputStream) throws Exception {
+        return (AJson) readerFor(theClass).readValue(inputStream);
     }
 }
@@ -0,0 +1,79 @@
+package dispatchlabs.utils;
+
+import org.apache.http.entity.AbstractHttpEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Request entity that serializes an {@link AJson} object directly to the connection's output stream when the
+ * request is sent, so the payload is never materialized as a String or byte array. The body is sent chunked.
+ */
+public class AJsonEntity extends AbstractHttpEntity {
+
+    /**
+     * Class level-declarations.
+     */
+    private final AJson aJson;
+
+    /**
+     * @param aJson
+     */
+    public AJsonEntity(AJson aJson) {
+        this.aJson = aJson;
+        setContentType("application/json; charset=UTF-8");
+        setChunked(true);
+    }
+
+    /**
+     * @return
+     */
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    /**
+     * @return
+     */
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    /**
+     * Only used by clients that pull the body instead of letting the entity write it, such as {@link AsyncHttp}.
+     *
+     * @return
+     * @throws IOException
+     */
+    @Override
+    public InputStream getContent() throws IOException {
+        return new ByteArrayInputStream(aJson.getWriter().writeValueAsBytes(aJson));
+    }
+
+    /**
+     * @param outputStream
+     * @throws IOException
+     */
+    @Override
+    public void writeTo(OutputStream outputStream) throws IOException {
+        try {
+            aJson.writeTo(outputStream);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * @return
+     */
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+}
@@ -0,0 +1,144 @@
+package dispatchlabs.utils;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link Http}. Requests are multiplexed over a small number of I/O reactor threads,
+ * so thousands of requests can be in flight without a thread each.
+ */
+public class AsyncHttp implements AutoCloseable {
+
+    /**
+     * Class level-declarations.
+     */
+    private final CloseableHttpAsyncClient closeableHttpAsyncClient;
+
+    /**
+     * @param maxConnectionsTotal
+     * @param maxConnectionsPerRoute
+     * @param ioThreadCount
+     * @param connectTimeout
+     * @param socketTimeout
+     * @throws Exception
+     */
+    public AsyncHttp(int maxConnectionsTotal, int maxConnectionsPerRoute, int ioThreadCount, int connectTimeout, int socketTimeout) throws Exception {
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom().setIoThreadCount(ioThreadCount).setConnectTimeout(connectTimeout).setSoTimeout(socketTimeout).build();
+        PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(ioReactorConfig));
+        connectionManager.setMaxTotal(maxConnectionsTotal);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        closeableHttpAsyncClient = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom().setConnectTimeout(connectTimeout).setSocketTimeout(socketTimeout).build())
+                .build();
+        closeableHttpAsyncClient.start();
+    }
+
+    /**
+     * @param url
+     * @param headers
+     * @param entity
+     * @param responseReader
+     * @return
+     */
+    public <T> CompletableFuture<T> post(String url, Map<String, String> headers, String entity, Http.ResponseReader<T> responseReader) {
+        StringEntity stringEntity = new StringEntity(entity, "UTF-8");
+        stringEntity.setContentType("application/json; charset=UTF-8");
+        HttpPost httpPost = new HttpPost(url);
+        setHeaders(httpPost, headers);
+        httpPost.setEntity(stringEntity);
+        return execute(httpPost, responseReader);
+    }
+
+    /**
+     * The async client pulls the body through {@link AJsonEntity#getContent()}, which serializes straight to bytes
+     * without an intermediate String.
+     *
+     * @param url
+     * @param headers
+     * @param entity
+     * @param responseReader
+     * @return
+     */
+    public <T> CompletableFuture<T> post(String url, Map<String, String> headers, AJson entity, Http.ResponseReader<T> responseReader) {
+        HttpPost httpPost = new HttpPost(url);
+        setHeaders(httpPost, headers);
+        httpPost.setEntity(new AJsonEntity(entity));
+        return execute(httpPost, responseReader);
+    }
+
+    /**
+     * @param url
+     * @param headers
+     * @param responseReader
+     * @return
+     */
+    public <T> CompletableFuture<T> get(String url, Map<String, String> headers, Http.ResponseReader<T> responseReader) {
+        HttpGet httpGet = new HttpGet(url);
+        setHeaders(httpGet, headers);
+        return execute(httpGet, responseReader);
+    }
+
+    /**
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        closeableHttpAsyncClient.close();
+    }
+
+    /**
+     * @param httpUriRequest
+     * @param headers
+     */
+    private void setHeaders(HttpUriRequest httpUriRequest, Map<String, String> headers) {
+        if (headers != null) {
+            for (Map.Entry<String, String> entry : headers.entrySet()) {
+                httpUriRequest.setHeader(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * The response body is buffered by the client and decoded by the reader on the I/O thread that completed it.
+     *
+     * @param httpUriRequest
+     * @param responseReader
+     * @return
+     */
+    private <T> CompletableFuture<T> execute(HttpUriRequest httpUriRequest, Http.ResponseReader<T> responseReader) {
+        CompletableFuture<T> completableFuture = new CompletableFuture<>();
+        closeableHttpAsyncClient.execute(httpUriRequest, new FutureCallback<HttpResponse>() {
+            public void completed(HttpResponse httpResponse) {
+                try {
+                    completableFuture.complete(responseReader.read(httpResponse.getEntity().getContent()));
+                } catch (Throwable t) {
+                    completableFuture.completeExceptionally(t);
+                }
+            }
+
+            public void failed(Exception e) {
+                completableFuture.completeExceptionally(e);
+            }
+
+            public void cancelled() {
+                completableFuture.completeExceptionally(new CancellationException(httpUriRequest.getURI().toString()));
+            }
+        });
+        return completableFuture;
+    }
+}
@@ -0,0 +1,110 @@
+package dispatchlabs.utils;
+
+import java.util.Arrays;
+
+/**
+ * Lowercase hex encoding and decoding through lookup tables. Decoding accepts either case.
+ */
+public final class Hex {
+
+    /**
+     * Class level-declarations.
+     */
+    private static final char[] DIGITS = "0123456789abcdef".toCharArray();
+    private static final byte[] VALUES = new byte[128];
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < 10; i++) {
+            VALUES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            VALUES['a' + i] = (byte) (10 + i);
+            VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    /**
+     *
+     */
+    private Hex() {
+    }
+
+    /**
+     * @param bytes
+     * @return
+     */
+    public static String encode(byte[] bytes) {
+        return encode(bytes, 0, bytes.length);
+    }
+
+    /**
+     * @param bytes
+     * @param offset
+     * @param length
+     * @return
+     */
+    public static String encode(byte[] bytes, int offset, int length) {
+        char[] chars = new char[length * 2];
+        for (int i = 0; i < length; i++) {
+            int b = bytes[offset + i] & 0xff;
+            chars[2 * i] = DIGITS[b >>> 4];
+            chars[2 * i + 1] = DIGITS[b & 0x0f];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * @param hex
+     * @return
+     * @throws IllegalArgumentException if the string has an odd length or a non hex character
+     */
+    public static byte[] decode(CharSequence hex) {
+        byte[] bytes = new byte[decodedLength(hex)];
+        decode(hex, bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Decodes into the given array.
+     *
+     * @param hex
+     * @param out
+     * @param offset
+     * @return the number of bytes written
+     * @throws IllegalArgumentException if the string has an odd length or a non hex character
+     */
+    public static int decode(CharSequence hex, byte[] out, int offset) {
+        int length = decodedLength(hex);
+        for (int i = 0; i < length; i++) {
+            out[offset + i] = (byte) ((digit(hex, 2 * i) << 4) | digit(hex, 2 * i + 1));
+        }
+        return length;
+    }
+
+    /**
+     * @param hex
+     * @return the number of bytes the string decodes to
+     * @throws IllegalArgumentException if the string has an odd length
+     */
+    public static int decodedLength(CharSequence hex) {
+        if ((hex.length() & 1) != 0) {
+            throw new IllegalArgumentException("hexBinary needs to be even-length: " + hex);
+        }
+        return hex.length() / 2;
+    }
+
+    /**
+     * @param hex
+     * @param index
+     * @return
+     */
+    private static int digit(CharSequence hex, int index) {
+        char c = hex.charAt(index);
+        int value = c < 128 ? VALUES[c] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException("contains illegal character for hexBinary: " + hex);
+        }
+        return value;
+    }
+}
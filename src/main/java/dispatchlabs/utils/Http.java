@@ -1,32 +1,53 @@
 package dispatchlabs.utils;
 
 import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 
 import javax.net.ssl.*;
 import java.security.SecureRandom;
 import java.security.cert.X509Certificate;
 
-import dispatchlabs.states.Transaction;
-import org.apache.http.HttpResponse;
 import org.apache.http.NameValuePair;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.conn.ssl.NoopHostnameVerifier;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
 
 import java.util.ArrayList;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
- *
+ * Thin wrapper over a pooled {@link CloseableHttpClient}. Instances are thread-safe and are meant to be
+ * long-lived; connections are kept alive and reused until they go idle or the instance is closed.
  */
 public class Http implements AutoCloseable {
 
+    /**
+     * Decodes a response body straight from its stream.
+     */
+    public interface ResponseReader<T> {
+
+        /**
+         * @param inputStream
+         * @return
+         * @throws Exception
+         */
+        T read(InputStream inputStream) throws Exception;
+    }
+
     /**
      * Class level-declarations.
      */
@@ -39,6 +60,35 @@ public class Http implements AutoCloseable {
         closeableHttpClient = HttpClients.createDefault();
     }
 
+    /**
+     * @param maxConnectionsTotal
+     * @param maxConnectionsPerRoute
+     * @param idleConnectionTimeout milliseconds before an unused pooled connection is evicted
+     * @param connectTimeout
+     * @param socketTimeout
+     */
+    public Http(int maxConnectionsTotal, int maxConnectionsPerRoute, long idleConnectionTimeout, int connectTimeout, int socketTimeout) throws Exception {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnectionsTotal);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        closeableHttpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom().setConnectTimeout(connectTimeout).setSocketTimeout(socketTimeout).build())
+                .evictExpiredConnections()
+                .evictIdleConnections(idleConnectionTimeout, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * For subclasses that bring their own transport; they pass null and override both execute methods and
+     * {@link #close()}.
+     *
+     * @param closeableHttpClient
+     */
+    protected Http(CloseableHttpClient closeableHttpClient) {
+        this.closeableHttpClient = closeableHttpClient;
+    }
+
     /**
      * @param trustAll
      */
@@ -58,7 +108,32 @@ public class Http implements AutoCloseable {
      * @throws Exception
      */
     public String post(String url, Map<String, String> headers, String entity) throws Exception {
-        StringEntity stringEntity = new StringEntity(entity, "UTF-8");
+        return execute(createPost(url, headers, entity));
+    }
+
+    /**
+     * @param url
+     * @param headers
+     * @param entity
+     * @param responseReader
+     * @return
+     * @throws Exception
+     */
+    public <T> T post(String url, Map<String, String> headers, String entity, ResponseReader<T> responseReader) throws Exception {
+        return execute(createPost(url, headers, entity), responseReader);
+    }
+
+    /**
+     * Posts the object as JSON, serializing it directly into the request body.
+     *
+     * @param url
+     * @param headers
+     * @param entity
+     * @param responseReader
+     * @return
+     * @throws Exception
+     */
+    public <T> T post(String url, Map<String, String> headers, AJson entity, ResponseReader<T> responseReader) throws Exception {
         HttpPost httpPost = new HttpPost(url);
 
         // Set headers.
@@ -69,20 +144,8 @@ public class Http implements AutoCloseable {
         }
 
         // Set entity.
-        stringEntity.setContentType("application/json; charset=UTF-8");
-        httpPost.setEntity(stringEntity);
-
-        // Execute.
-        HttpResponse httpResponse = closeableHttpClient.execute(httpPost);
-        BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(httpResponse.getEntity().getContent()));
-
-        // Get httpResponse.
-        StringBuilder responseStringBuilder = new StringBuilder();
-        String line;
-        while ((line = bufferedReader.readLine()) != null) {
-            responseStringBuilder.append(line);
-        }
-        return responseStringBuilder.toString();
+        httpPost.setEntity(new AJsonEntity(entity));
+        return execute(httpPost, responseReader);
     }
 
     /**
@@ -108,26 +171,76 @@ public class Http implements AutoCloseable {
         }
 
         // Execute.
-        HttpResponse httpResponse = closeableHttpClient.execute(httpPost);
-        BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(httpResponse.getEntity().getContent()));
-
-        // Get httpResponse.
-        StringBuilder responseStringBuilder = new StringBuilder();
-        String line;
-        while ((line = bufferedReader.readLine()) != null) {
-            responseStringBuilder.append(line);
+        return execute(httpPost);
+    }
+
+    /**
+     * @param url
+     * @param headers
+     * @return
+     * @throws Exception
+     */
+    public String get(String url, Map<String, String> headers) throws Exception {
+        String response = execute(createGet(url, headers));
+        if (!response.startsWith("{")) {
+            throw new Exception(response);
         }
+        return response;
+    }
 
-        return responseStringBuilder.toString();
+    /**
+     * @param url
+     * @param headers
+     * @param responseReader
+     * @return
+     * @throws Exception
+     */
+    public <T> T get(String url, Map<String, String> headers, ResponseReader<T> responseReader) throws Exception {
+        return execute(createGet(url, headers), responseReader);
     }
 
     /**
+     * Opens the response body for reading at the caller's pace. Closing the stream releases the connection, which
+     * is reused only if the body was read to the end.
+     *
      * @param url
      * @param headers
      * @return
      * @throws Exception
      */
-    public String get(String url, Map<String, String> headers) throws Exception {
+    public InputStream open(String url, Map<String, String> headers) throws Exception {
+        return open(createGet(url, headers));
+    }
+
+    /**
+     * @param url
+     * @param headers
+     * @param entity
+     * @return
+     */
+    private HttpPost createPost(String url, Map<String, String> headers, String entity) {
+        StringEntity stringEntity = new StringEntity(entity, "UTF-8");
+        HttpPost httpPost = new HttpPost(url);
+
+        // Set headers.
+        if (headers != null) {
+            for (Map.Entry<String, String> entry : headers.entrySet()) {
+                httpPost.setHeader(entry.getKey(), entry.getValue());
+            }
+        }
+
+        // Set entity.
+        stringEntity.setContentType("application/json; charset=UTF-8");
+        httpPost.setEntity(stringEntity);
+        return httpPost;
+    }
+
+    /**
+     * @param url
+     * @param headers
+     * @return
+     */
+    private HttpGet createGet(String url, Map<String, String> headers) {
         HttpGet httpGet = new HttpGet(url);
 
         // Set headers.
@@ -136,26 +249,75 @@ public class Http implements AutoCloseable {
                 httpGet.setHeader(entry.getKey(), entry.getValue());
             }
         }
+        return httpGet;
+    }
 
-        // Execute.
-        HttpResponse httpResponse = closeableHttpClient.execute(httpGet);
-        BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(httpResponse.getEntity().getContent()));
-
-        StringBuilder responseStringBuilder = new StringBuilder();
-        String line;
-        while ((line = bufferedReader.readLine()) != null) {
-            responseStringBuilder.append(line);
+    /**
+     * Executes the request and hands the response body stream to the reader. The response is always closed so
+     * the underlying connection goes back to the pool.
+     *
+     * @param httpUriRequest
+     * @param responseReader
+     * @return
+     * @throws Exception
+     */
+    protected <T> T execute(HttpUriRequest httpUriRequest, ResponseReader<T> responseReader) throws Exception {
+        try (CloseableHttpResponse httpResponse = closeableHttpClient.execute(httpUriRequest)) {
+            T t = responseReader.read(httpResponse.getEntity().getContent());
+            EntityUtils.consume(httpResponse.getEntity());
+            return t;
         }
-        if (!responseStringBuilder.toString().startsWith("{")) {
-            throw new Exception(responseStringBuilder.toString());
+    }
+
+    /**
+     * Executes the request and hands back the open response body; closing it closes the response.
+     *
+     * @param httpUriRequest
+     * @return
+     * @throws Exception
+     */
+    protected InputStream open(HttpUriRequest httpUriRequest) throws Exception {
+        CloseableHttpResponse httpResponse = closeableHttpClient.execute(httpUriRequest);
+        try {
+            return new FilterInputStream(httpResponse.getEntity().getContent()) {
+                @Override
+                public void close() throws IOException {
+                    // A fully read body has already released its connection; otherwise this discards it.
+                    httpResponse.close();
+                }
+            };
+        } catch (Throwable t) {
+            httpResponse.close();
+            throw t;
         }
-        return responseStringBuilder.toString();
     }
 
     /**
+     * Executes the request and reads the whole response body. The response is always closed so the underlying
+     * connection goes back to the pool.
+     *
+     * @param httpUriRequest
+     * @return
      * @throws Exception
      */
-    public void close() throws Exception {
+    protected String execute(HttpUriRequest httpUriRequest) throws Exception {
+        try (CloseableHttpResponse httpResponse = closeableHttpClient.execute(httpUriRequest)) {
+            BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(httpResponse.getEntity().getContent()));
+
+            // Get httpResponse.
+            StringBuilder responseStringBuilder = new StringBuilder();
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                responseStringBuilder.append(line);
+            }
+            return responseStringBuilder.toString();
+        }
+    }
+
+    /**
+     * @throws IOException
+     */
+    public void close() throws IOException {
         closeableHttpClient.close();
     }
 
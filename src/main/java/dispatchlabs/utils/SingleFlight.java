@@ -0,0 +1,83 @@
+package dispatchlabs.utils;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.UnaryOperator;
+
+/**
+ * Coalesces concurrent calls for the same key: the first caller runs the call, and callers arriving while it is in
+ * flight wait for it and share its result or exception. Nothing is cached; a call arriving after the previous one
+ * finished runs again. Callers that joined get the result through a copy function, so a mutable result is never
+ * handed to two callers.
+ */
+public class SingleFlight<K, V> {
+
+    /**
+     * Class level-declarations.
+     */
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final UnaryOperator<V> copy;
+
+    /**
+     * For immutable results, which every caller can share as they are.
+     */
+    public SingleFlight() {
+        this(UnaryOperator.identity());
+    }
+
+    /**
+     * @param copy gives each caller that joined a call its own copy of the result
+     */
+    public SingleFlight(UnaryOperator<V> copy) {
+        this.copy = copy;
+    }
+
+    /**
+     * @param key
+     * @param callable
+     * @return
+     * @throws Exception
+     */
+    public V execute(K key, Callable<V> callable) throws Exception {
+        CompletableFuture<V> completableFuture = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, completableFuture);
+        if (existing != null) {
+            try {
+                return copy.apply(existing.get());
+            } catch (ExecutionException e) {
+                throw rethrow(e.getCause());
+            }
+        }
+        try {
+            V v = callable.call();
+            completableFuture.complete(v);
+            return v;
+        } catch (Throwable t) {
+            completableFuture.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, completableFuture);
+        }
+    }
+
+    /**
+     * @return the number of calls in flight
+     */
+    public int size() {
+        return inFlight.size();
+    }
+
+    /**
+     * @param t
+     * @return never returns normally for errors
+     */
+    private static Exception rethrow(Throwable t) {
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return (Exception) t;
+    }
+}
@@ -0,0 +1,56 @@
+package dispatchlabs.utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread and transport factories that switch to virtual threads where the JDK has them. This is the Java 8 version;
+ * the multi-release jar built by the {@code jdk21} profile replaces it with one from {@code src/main/java21}.
+ */
+public final class Threads {
+
+    /**
+     *
+     */
+    private Threads() {
+    }
+
+    /**
+     * @return true when {@link #newThreadPerTaskExecutor(String)} hands out virtual threads
+     */
+    public static boolean isVirtualThreadSupported() {
+        return false;
+    }
+
+    /**
+     * An executor starting one thread per task. Without virtual threads these are cached daemon platform threads.
+     *
+     * @param name thread name prefix
+     * @return
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * An {@link Http} whose blocking calls park virtual threads instead of pinning their carrier threads. Without
+     * virtual threads this is the pooled {@link Http}.
+     *
+     * @param maxConnectionsTotal
+     * @param maxConnectionsPerRoute
+     * @param idleConnectionTimeout
+     * @param connectTimeout
+     * @param socketTimeout
+     * @return
+     * @throws Exception
+     */
+    public static Http newVirtualThreadHttp(int maxConnectionsTotal, int maxConnectionsPerRoute, long idleConnectionTimeout, int connectTimeout, int socketTimeout) throws Exception {
+        return new Http(maxConnectionsTotal, maxConnectionsPerRoute, idleConnectionTimeout, connectTimeout, socketTimeout);
+    }
+}
@@ -2,7 +2,6 @@ package dispatchlabs.utils;
 
 import dispatchlabs.crypto.Crypto;
 
-import javax.xml.bind.DatatypeConverter;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
@@ -48,11 +47,7 @@ public class Utils {
      * @return
      */
     public static String toHexString(byte[] bytes) {
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) {
-            sb.append(String.format("%02x", b));
-        }
-        return sb.toString();
+        return Hex.encode(bytes);
     }
 
     /**
@@ -61,7 +56,7 @@ public class Utils {
      * @return
      */
     public static byte[] toByteArray(String s) {
-        return DatatypeConverter.parseHexBinary(s);
+        return Hex.decode(s);
     }
 
     /**
@@ -84,15 +79,10 @@ public class Utils {
      */
     public static String toAddressFromPublicKey(String publicKey) throws Exception {
         byte[] publicKeyBytes = toByteArray(publicKey);
-        byte[] hashablePublicKey = new byte[64];
-        for (int i=1; i<publicKeyBytes.length; i++) {
-            hashablePublicKey[i-1] = publicKeyBytes[i];
-        }
-        byte[] hash = Crypto.hash(hashablePublicKey);
+        byte[] hash = new byte[32];
+        Crypto.hash(publicKeyBytes, 1, publicKeyBytes.length - 1, hash, 0);
         byte[] address = new byte[20];
-        for (int i=0; i<address.length; i++) {
-            address[i] = hash[i+12];
-        }
+        System.arraycopy(hash, 12, address, 0, address.length);
         return toHexString(address);
     }
 }
@@ -0,0 +1,49 @@
+package dispatchlabs.utils;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Thread and transport factories backed by virtual threads. Java 21 version of the class in {@code src/main/java}.
+ */
+public final class Threads {
+
+    /**
+     *
+     */
+    private Threads() {
+    }
+
+    /**
+     * @return true when {@link #newThreadPerTaskExecutor(String)} hands out virtual threads
+     */
+    public static boolean isVirtualThreadSupported() {
+        return true;
+    }
+
+    /**
+     * An executor starting one virtual thread per task.
+     *
+     * @param name thread name prefix
+     * @return
+     */
+    public static ExecutorService newThreadPerTaskExecutor(String name) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+    }
+
+    /**
+     * An {@link Http} over the JDK client, whose blocking calls park virtual threads instead of pinning their carrier
+     * threads.
+     *
+     * @param maxConnectionsTotal
+     * @param maxConnectionsPerRoute
+     * @param idleConnectionTimeout
+     * @param connectTimeout
+     * @param socketTimeout
+     * @return
+     * @throws Exception
+     */
+    public static Http newVirtualThreadHttp(int maxConnectionsTotal, int maxConnectionsPerRoute, long idleConnectionTimeout, int connectTimeout, int socketTimeout) throws Exception {
+        return new VirtualThreadHttp(maxConnectionsTotal, maxConnectionsPerRoute, connectTimeout, socketTimeout);
+    }
+}
@@ -0,0 +1,382 @@
+package dispatchlabs.utils;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * {@link Http} over the JDK client. The Apache pool waits for a free connection while holding a monitor, which pins
+ * the carrier of a waiting virtual thread; here callers wait on semaphores and the JDK client parks them during I/O,
+ * so tens of thousands of virtual threads can share one instance. Connection limits are enforced by the semaphores.
+ * Request bodies are streamed: the entity is written on a virtual thread of its own in chunks handed to the client as
+ * it asks for them, so a large body is never held in memory. The JDK client has no per-instance idle timeout, so the
+ * configured idle connection timeout does not apply here; idle keep-alive connections are governed by the JDK's
+ * {@code jdk.httpclient.keepalive.timeout} system property instead.
+ */
+final class VirtualThreadHttp extends Http {
+
+    /**
+     * Streams an entity to the JDK client. The entity is written on a virtual thread into a {@link BodyStream}, which
+     * hands full chunks to the subscriber as it asks for them.
+     */
+    private class EntityPublisher implements HttpRequest.BodyPublisher {
+
+        /**
+         * Class level-declarations.
+         */
+        private final HttpEntity httpEntity;
+
+        /**
+         * @param httpEntity
+         */
+        private EntityPublisher(HttpEntity httpEntity) {
+            this.httpEntity = httpEntity;
+        }
+
+        /**
+         * @return the length, or -1 when the entity does not know it
+         */
+        @Override
+        public long contentLength() {
+            return Math.max(-1, httpEntity.getContentLength());
+        }
+
+        /**
+         * @param subscriber
+         */
+        @Override
+        public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            BodyStream bodyStream = new BodyStream(subscriber);
+            subscriber.onSubscribe(bodyStream);
+            try {
+                executorService.execute(() -> {
+                    try {
+                        httpEntity.writeTo(bodyStream);
+                        bodyStream.close();
+                    } catch (Throwable t) {
+                        // A failed write ends the body with the error, so a truncated body is never sent as complete.
+                        if (!bodyStream.cancelled) {
+                            subscriber.onError(t);
+                        }
+                        return;
+                    }
+                    if (!bodyStream.cancelled) {
+                        subscriber.onComplete();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                subscriber.onError(e);
+            }
+        }
+    }
+
+    /**
+     * The output stream an entity writes into and the subscription of the client reading it. A write waits while the
+     * client has no demand; waits use a lock rather than a monitor so they do not pin the carrier of the virtual
+     * thread.
+     */
+    private static class BodyStream extends OutputStream implements Flow.Subscription {
+
+        /**
+         * Class level-declarations.
+         */
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition demanded = lock.newCondition();
+        private long demand;
+        private volatile boolean cancelled;
+        private byte[] chunk = new byte[CHUNK_SIZE];
+        private int count;
+
+        /**
+         * @param subscriber
+         */
+        private BodyStream(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * @param n
+         */
+        @Override
+        public void request(long n) {
+            lock.lock();
+            try {
+                demand = n <= 0 || demand + n < 0 ? Long.MAX_VALUE : demand + n;
+                demanded.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         *
+         */
+        @Override
+        public void cancel() {
+            lock.lock();
+            try {
+                cancelled = true;
+                demanded.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * @param b
+         * @throws IOException
+         */
+        @Override
+        public void write(int b) throws IOException {
+            if (count == chunk.length) {
+                emit();
+            }
+            chunk[count++] = (byte) b;
+        }
+
+        /**
+         * @param b
+         * @param off
+         * @param len
+         * @throws IOException
+         */
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (count == chunk.length) {
+                    emit();
+                }
+                int n = Math.min(len, chunk.length - count);
+                System.arraycopy(b, off, chunk, count, n);
+                count += n;
+                off += n;
+                len -= n;
+            }
+        }
+
+        /**
+         * Hands out what is left.
+         *
+         * @throws IOException
+         */
+        @Override
+        public void close() throws IOException {
+            if (count > 0) {
+                emit();
+            }
+        }
+
+        /**
+         * @throws IOException if the client cancelled
+         */
+        private void emit() throws IOException {
+            lock.lock();
+            try {
+                while (demand == 0 && !cancelled) {
+                    demanded.awaitUninterruptibly();
+                }
+                if (cancelled) {
+                    throw new IOException("Request body cancelled");
+                }
+                if (demand != Long.MAX_VALUE) {
+                    demand--;
+                }
+            } finally {
+                lock.unlock();
+            }
+            subscriber.onNext(ByteBuffer.wrap(chunk, 0, count));
+            chunk = new byte[CHUNK_SIZE];
+            count = 0;
+        }
+    }
+
+    /**
+     * Class level-declarations.
+     */
+    private static final int CHUNK_SIZE = 8192;
+    private final ExecutorService executorService;
+    private final HttpClient httpClient;
+    private final Semaphore connections;
+    private final int maxConnectionsPerRoute;
+    private final ConcurrentHashMap<String, Semaphore> routeConnections = new ConcurrentHashMap<>();
+    private final Duration socketTimeout;
+
+    /**
+     * @param maxConnectionsTotal
+     * @param maxConnectionsPerRoute
+     * @param connectTimeout
+     * @param socketTimeout
+     */
+    VirtualThreadHttp(int maxConnectionsTotal, int maxConnectionsPerRoute, int connectTimeout, int socketTimeout) {
+        super((CloseableHttpClient) null);
+        this.executorService = Threads.newThreadPerTaskExecutor("dispatchlabs-http");
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeout))
+                .executor(executorService)
+                .build();
+        this.connections = new Semaphore(maxConnectionsTotal);
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.socketTimeout = Duration.ofMillis(socketTimeout);
+    }
+
+    /**
+     * @param httpUriRequest
+     * @param responseReader
+     * @return
+     * @throws Exception
+     */
+    @Override
+    protected <T> T execute(HttpUriRequest httpUriRequest, ResponseReader<T> responseReader) throws Exception {
+        Semaphore routeSemaphore = acquire(httpUriRequest.getURI());
+        try {
+            HttpResponse<InputStream> httpResponse = httpClient.send(createHttpRequest(httpUriRequest), HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream inputStream = httpResponse.body()) {
+                // Readers may close the stream; keep it open to drain what they left so the connection is reused.
+                T t = responseReader.read(new FilterInputStream(inputStream) {
+                    @Override
+                    public void close() {
+                    }
+                });
+                inputStream.transferTo(OutputStream.nullOutputStream());
+                return t;
+            }
+        } finally {
+            release(routeSemaphore);
+        }
+    }
+
+    /**
+     * @param httpUriRequest
+     * @return
+     * @throws Exception
+     */
+    @Override
+    protected String execute(HttpUriRequest httpUriRequest) throws Exception {
+        Semaphore routeSemaphore = acquire(httpUriRequest.getURI());
+        try {
+            HttpResponse<Stream<String>> httpResponse = httpClient.send(createHttpRequest(httpUriRequest), HttpResponse.BodyHandlers.ofLines());
+            try (Stream<String> lines = httpResponse.body()) {
+                return lines.collect(Collectors.joining());
+            }
+        } finally {
+            release(routeSemaphore);
+        }
+    }
+
+    /**
+     * The connection slot is held until the stream is closed.
+     *
+     * @param httpUriRequest
+     * @return
+     * @throws Exception
+     */
+    @Override
+    protected InputStream open(HttpUriRequest httpUriRequest) throws Exception {
+        Semaphore routeSemaphore = acquire(httpUriRequest.getURI());
+        try {
+            HttpResponse<InputStream> httpResponse = httpClient.send(createHttpRequest(httpUriRequest), HttpResponse.BodyHandlers.ofInputStream());
+            AtomicBoolean closed = new AtomicBoolean();
+            return new FilterInputStream(httpResponse.body()) {
+                @Override
+                public void close() throws IOException {
+                    if (closed.compareAndSet(false, true)) {
+                        try {
+                            super.close();
+                        } finally {
+                            release(routeSemaphore);
+                        }
+                    }
+                }
+            };
+        } catch (Throwable t) {
+            release(routeSemaphore);
+            throw t;
+        }
+    }
+
+    /**
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+        executorService.shutdown();
+    }
+
+    /**
+     * @param httpUriRequest
+     * @return
+     * @throws Exception
+     */
+    private HttpRequest createHttpRequest(HttpUriRequest httpUriRequest) throws Exception {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(httpUriRequest.getURI()).timeout(socketTimeout);
+
+        // Set headers.
+        for (Header header : httpUriRequest.getAllHeaders()) {
+            builder.setHeader(header.getName(), header.getValue());
+        }
+
+        // Set entity.
+        HttpRequest.BodyPublisher bodyPublisher = HttpRequest.BodyPublishers.noBody();
+        if (httpUriRequest instanceof HttpEntityEnclosingRequest httpEntityEnclosingRequest && httpEntityEnclosingRequest.getEntity() != null) {
+            HttpEntity httpEntity = httpEntityEnclosingRequest.getEntity();
+            bodyPublisher = new EntityPublisher(httpEntity);
+            if (httpEntity.getContentType() != null && !httpUriRequest.containsHeader("Content-Type")) {
+                builder.setHeader("Content-Type", httpEntity.getContentType().getValue());
+            }
+        }
+        return builder.method(httpUriRequest.getMethod(), bodyPublisher).build();
+    }
+
+    /**
+     * Waits for a connection slot overall and on the request's route.
+     *
+     * @param uri
+     * @return the route's semaphore
+     * @throws InterruptedException
+     */
+    private Semaphore acquire(URI uri) throws InterruptedException {
+        Semaphore routeSemaphore = routeConnections.computeIfAbsent(uri.getHost() + ":" + uri.getPort(), route -> new Semaphore(maxConnectionsPerRoute));
+        routeSemaphore.acquire();
+        try {
+            connections.acquire();
+        } catch (InterruptedException e) {
+            routeSemaphore.release();
+            throw e;
+        }
+        return routeSemaphore;
+    }
+
+    /**
+     * @param routeSemaphore
+     */
+    private void release(Semaphore routeSemaphore) {
+        connections.release();
+        routeSemaphore.release();
+    }
+}
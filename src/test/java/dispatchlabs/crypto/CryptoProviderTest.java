@@ -0,0 +1,112 @@
+package dispatchlabs.crypto;
+
+import dispatchlabs.utils.Utils;
+import org.junit.Assume;
+import org.junit.Test;
+import org.web3j.crypto.ECKeyPair;
+import org.web3j.crypto.Sign;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Known answers produced by web3j's {@code Sign.signMessage(hash, keyPair, false)}, the signing path the providers
+ * replaced. The hashes are the Keccak-256 of "dispatchlabs 0", "dispatchlabs 1", "dispatchlabs 2" and
+ * "dispatchlabs 15", picked to cover both recovery ids with and without the high s that has to be negated.
+ */
+public class CryptoProviderTest {
+
+    /**
+     * Class level-declarations.
+     */
+    private static final String PRIVATE_KEY = "c87509a1c067bbde78beb793e6fa76530b6382a4c0241e5e4a9ec0a0f44dc0d3";
+    private static final String PUBLIC_KEY = "04af80b90d25145da28c583359beb47b21796b2fe1a23c1511e443e7a64dfdb27d7434c380f0aa4c500e220aa1a9d068514b1ff4d5019e624e7ba1efe82b340a59";
+    private static final String ADDRESS = "627306090abab3a6e1400e9345bc60c78a8bef57";
+    private static final String[][] SIGNATURES = {
+            // High s, recovery id 1.
+            {"2be00c7fe0ac323b19cbc774f19464090d51699c2bc1d00f75608143d63261af", "d1e0a5d701a12736297da6de482f089d3cbad5c24a5b0c869735d516982d105d4f057135d7bef411443acbc1bf0c458a2318dd92ecefc98bb421050e15d7cfa801"},
+            // High s, recovery id 0.
+            {"04c329dbf0936fde6a200d425f49b1e46505b831b1f6c709af1b2d22aa60bb8a", "ce5e0601dc47bc0c69db3036d6ed9130b782618d3dab95a7a618b38c4d9f0ba67218abaf9f3b4a651424c3fe27f64b46b9049c3f7e61bc5edc46c6c314229ff200"},
+            // Low s, recovery id 1.
+            {"8ace5d39118e38471d0524dbbd5f7679118553c40a19199355c257b79e3b3558", "7061863d0b7f66c0bb50889c9bdb9ed422b0e66735e7c56152d113d5630352bc498bc63a1ed287bfc40b3001986616a06a3c92d2fe29d95d7be27b0ea5204f9a01"},
+            // Low s, recovery id 0.
+            {"9f9a3aa10879700f16143ec687d90c58593a8cc68c117e6bd50c3f7d4e122cc1", "e1bdc8a17b461c94d88f362df072427abbd4d7a738e74e3590831f5ba7caf4757519d068ae8c4b0203d9108411bd590212e76b75164016d250eb27db4424dcb800"},
+    };
+
+    /**
+     *
+     */
+    @Test
+    public void javaProviderMatchesKnownAnswers() {
+        assertKnownAnswers(new JavaCryptoProvider());
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void nativeProviderMatchesKnownAnswers() {
+        Assume.assumeTrue("libsecp256k1 is not available", NativeCryptoProvider.isAvailable());
+        assertKnownAnswers(new NativeCryptoProvider());
+    }
+
+    /**
+     *
+     */
+    @Test
+    public void keyDerivesKnownAddress() {
+        Key key = new Key(PRIVATE_KEY);
+        assertEquals(PUBLIC_KEY, Utils.toHexString(key.getPublicKeyBytes()));
+        assertEquals(ADDRESS, key.getAddress());
+    }
+
+    /**
+     * Random keys and hashes from a fixed seed, against web3j itself.
+     */
+    @Test
+    public void javaProviderMatchesWeb3j() {
+        CryptoProvider cryptoProvider = new JavaCryptoProvider();
+        Random random = new Random(1975);
+        for (int i = 0; i < 200; i++) {
+            byte[] privateKey = new byte[32];
+            random.nextBytes(privateKey);
+            byte[] hash = new byte[32];
+            random.nextBytes(hash);
+            Key key = new Key(new BigInteger(1, privateKey));
+            ECKeyPair ecKeyPair = ECKeyPair.create(new BigInteger(1, privateKey));
+
+            byte[] publicKey = cryptoProvider.publicKeyFromPrivate(key.getPrivateKeyBytes());
+            assertArrayEquals(Utils.bigIntegerToBytes(ecKeyPair.getPublicKey(), 64), Arrays.copyOfRange(publicKey, 1, 65));
+            assertArrayEquals(web3jSign(ecKeyPair, hash), cryptoProvider.sign(key, hash));
+        }
+    }
+
+    /**
+     * @param cryptoProvider
+     */
+    private static void assertKnownAnswers(CryptoProvider cryptoProvider) {
+        Key key = new Key(PRIVATE_KEY);
+        assertEquals(PUBLIC_KEY, Utils.toHexString(cryptoProvider.publicKeyFromPrivate(key.getPrivateKeyBytes())));
+        for (String[] signature : SIGNATURES) {
+            assertEquals(signature[1], Utils.toHexString(cryptoProvider.sign(key, Utils.toByteArray(signature[0]))));
+        }
+    }
+
+    /**
+     * @param ecKeyPair
+     * @param hash
+     * @return r, s and the recovery id, as the providers return them
+     */
+    private static byte[] web3jSign(ECKeyPair ecKeyPair, byte[] hash) {
+        Sign.SignatureData signatureData = Sign.signMessage(hash, ecKeyPair, false);
+        byte[] signatureBytes = new byte[65];
+        System.arraycopy(signatureData.getR(), 0, signatureBytes, 0, 32);
+        System.arraycopy(signatureData.getS(), 0, signatureBytes, 32, 32);
+        signatureBytes[64] = (byte) (signatureData.getV() - 27);
+        return signatureBytes;
+    }
+}
@@ -0,0 +1,75 @@
+package dispatchlabs.crypto;
+
+import org.web3j.crypto.ECKeyPair;
+import org.web3j.crypto.Sign;
+
+import java.math.BigInteger;
+
+/**
+ * Compares key derivation and signing of the providers with the web3j path they replaced. Not run by the build:
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+ * java -cp target/classes:target/test-classes:$(cat target/classpath.txt) dispatchlabs.crypto.SignBenchmark
+ * </pre>
+ * Add {@code -Djava.library.path=secp256k1/.libs} to include the native provider.
+ */
+public class SignBenchmark {
+
+    /**
+     * Class level-declarations.
+     */
+    private static final int ITERATIONS = 5000;
+    private static final int ROUNDS = 5;
+
+    /**
+     * @param args
+     */
+    public static void main(String[] args) {
+        Key key = new Key();
+        byte[] hash = Crypto.hash("dispatchlabs".getBytes());
+        BigInteger privateKey = new BigInteger(1, key.getPrivateKeyBytes());
+        ECKeyPair ecKeyPair = ECKeyPair.create(privateKey);
+        CryptoProvider javaCryptoProvider = new JavaCryptoProvider();
+        CryptoProvider nativeCryptoProvider = NativeCryptoProvider.isAvailable() ? new NativeCryptoProvider() : null;
+
+        // The first rounds warm up the JIT; look at the last.
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                Sign.publicKeyFromPrivate(privateKey);
+            }
+            report(round, "public key web3j", start);
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                javaCryptoProvider.publicKeyFromPrivate(key.getPrivateKeyBytes());
+            }
+            report(round, "public key java", start);
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                Sign.signMessage(hash, ecKeyPair, false);
+            }
+            report(round, "sign web3j", start);
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                javaCryptoProvider.sign(key, hash);
+            }
+            report(round, "sign java", start);
+            if (nativeCryptoProvider != null) {
+                start = System.nanoTime();
+                for (int i = 0; i < ITERATIONS; i++) {
+                    nativeCryptoProvider.sign(key, hash);
+                }
+                report(round, "sign native", start);
+            }
+        }
+    }
+
+    /**
+     * @param round
+     * @param name
+     * @param start
+     */
+    private static void report(int round, String name, long start) {
+        System.out.printf("round %d: %-16s %8.1f us/op%n", round, name, (System.nanoTime() - start) / 1e3 / ITERATIONS);
+    }
+}
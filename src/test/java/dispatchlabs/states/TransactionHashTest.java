@@ -0,0 +1,134 @@
+package dispatchlabs.states;
+
+import dispatchlabs.utils.Utils;
+import org.junit.Test;
+import org.web3j.crypto.Hash;
+
+import javax.xml.bind.DatatypeConverter;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * The hash must stay what the original {@code Transaction.create} computed: the fields concatenated into a
+ * {@link ByteArrayOutputStream} and hashed with web3j's Keccak-256. The nodes compute the same hash, so any drift in
+ * the encoding makes every transaction invalid.
+ */
+public class TransactionHashTest {
+
+    /**
+     * Class level-declarations.
+     */
+    private static final String PRIVATE_KEY = "c87509a1c067bbde78beb793e6fa76530b6382a4c0241e5e4a9ec0a0f44dc0d3";
+    private static final String ADDRESS = "627306090abab3a6e1400e9345bc60c78a8bef57";
+
+    /**
+     * Random fields from a fixed seed, with and without non-ASCII text.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void hashMatchesLegacyPreimage() throws Exception {
+        Random random = new Random(1975);
+        for (int i = 0; i < 200; i++) {
+            String to = randomHex(random, 20);
+            String value = String.valueOf(random.nextInt(Integer.MAX_VALUE));
+            String code = randomHex(random, random.nextInt(64));
+            String method = randomString(random, random.nextInt(16), i % 2 == 0);
+            String params = randomString(random, random.nextInt(128), i % 2 == 1);
+            assertLegacyHash((byte) random.nextInt(3), to, value, code, method, params, random.nextLong());
+        }
+    }
+
+    /**
+     * Deployments have no recipient.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void hashMatchesLegacyPreimageWithEmptyTo() throws Exception {
+        assertLegacyHash(Transaction.Type.SMART_CONTRACT, "", "0", "6060604052", "", "", 1526316145000L);
+        assertLegacyHash(Transaction.Type.SMART_CONTRACT, "", "", "", "", "", 0);
+    }
+
+    /**
+     * Non-ASCII method and parameters are hashed as UTF-8.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void hashMatchesLegacyPreimageWithNonAsciiText() throws Exception {
+        assertLegacyHash(Transaction.Type.SMART_CONTRACT, ADDRESS, "7", "", "überweisen", "[\"日本語\", \"€ 5\", \"🚀\"]", 1526316145000L);
+    }
+
+    /**
+     * A transaction large enough to outgrow the retained preimage buffer, then a small one using the shrunk buffer.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void hashMatchesLegacyPreimageAfterLargeTransaction() throws Exception {
+        Random random = new Random(1975);
+        assertLegacyHash(Transaction.Type.SMART_CONTRACT, ADDRESS, "1", randomHex(random, 40000), "method", randomString(random, 100000, true), 1L);
+        assertLegacyHash(Transaction.Type.TRANSFER_TOKENS, ADDRESS, "1", "", "", "", 2L);
+    }
+
+    /**
+     * @param type
+     * @param to
+     * @param value
+     * @param code
+     * @param method
+     * @param params
+     * @param time
+     * @throws Exception
+     */
+    private static void assertLegacyHash(byte type, String to, String value, String code, String method, String params, long time) throws Exception {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        byteArrayOutputStream.write(new byte[]{type});
+        byteArrayOutputStream.write(DatatypeConverter.parseHexBinary(ADDRESS));
+        byteArrayOutputStream.write(DatatypeConverter.parseHexBinary(to));
+        byteArrayOutputStream.write(value.getBytes(StandardCharsets.UTF_8));
+        byteArrayOutputStream.write(DatatypeConverter.parseHexBinary(code));
+        byteArrayOutputStream.write(method.getBytes(StandardCharsets.UTF_8));
+        byteArrayOutputStream.write(params.getBytes(StandardCharsets.UTF_8));
+        byteArrayOutputStream.write(Utils.longToBytes(time));
+        byte[] expected = Hash.sha3(byteArrayOutputStream.toByteArray());
+
+        Transaction transaction = Transaction.create(PRIVATE_KEY, ADDRESS, to, type, value, code, method, params, time);
+        assertArrayEquals(expected, transaction.getHashValue().toByteArray());
+        assertEquals(Utils.toHexString(expected), transaction.getHash());
+    }
+
+    /**
+     * @param random
+     * @param length in bytes
+     * @return
+     */
+    private static String randomHex(Random random, int length) {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return Utils.toHexString(bytes);
+    }
+
+    /**
+     * @param random
+     * @param length   in characters
+     * @param nonAscii whether to include characters beyond ASCII, up to supplementary ones
+     * @return
+     */
+    private static String randomString(Random random, int length, boolean nonAscii) {
+        StringBuilder stringBuilder = new StringBuilder(length);
+        while (stringBuilder.length() < length) {
+            int codePoint = nonAscii ? random.nextInt(0x1F680) : 0x20 + random.nextInt(0x5F);
+            if (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE) {
+                continue;
+            }
+            stringBuilder.appendCodePoint(codePoint);
+        }
+        return stringBuilder.toString();
+    }
+}
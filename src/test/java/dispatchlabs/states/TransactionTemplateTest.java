@@ -0,0 +1,96 @@
+package dispatchlabs.states;
+
+import dispatchlabs.crypto.Key;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A template only saves work; what it builds must be exactly what {@link Transaction#create} builds from the same
+ * fields.
+ */
+public class TransactionTemplateTest {
+
+    /**
+     * Class level-declarations.
+     */
+    private static final String PRIVATE_KEY = "c87509a1c067bbde78beb793e6fa76530b6382a4c0241e5e4a9ec0a0f44dc0d3";
+
+    /**
+     * One template reused for many recipients, values and times.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void transferMatchesCreate() throws Exception {
+        Key key = new Key(PRIVATE_KEY);
+        TransactionTemplate transactionTemplate = TransactionTemplate.transferTokens(key);
+        Random random = new Random(1975);
+        for (int i = 0; i < 50; i++) {
+            byte[] toBytes = new byte[Address.LENGTH];
+            random.nextBytes(toBytes);
+            Address to = Address.of(toBytes);
+            String value = String.valueOf(random.nextInt(Integer.MAX_VALUE));
+            long time = random.nextLong();
+            Transaction expected = Transaction.create(key, key.getAddress(), to.toString(), Transaction.Type.TRANSFER_TOKENS, value, "", "", "", time);
+            assertIdentical(expected, transactionTemplate.create(to.toString(), value, time));
+            assertIdentical(expected, transactionTemplate.create(to, value, time));
+        }
+    }
+
+    /**
+     * Contract calls, including non-ASCII parameters and an explicit sender.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void contractCallMatchesCreate() throws Exception {
+        Key key = new Key(PRIVATE_KEY);
+        String to = "c3be1a3a5c6134cca51896fadf032c4c61bc355e";
+        String method = "überweisen";
+        String params = "[\"日本語\", \"€ 5\", \"🚀\"]";
+        TransactionTemplate transactionTemplate = new TransactionTemplate(key, key.getAddress(), Transaction.Type.SMART_CONTRACT, "", method, params);
+        Transaction expected = Transaction.create(key, key.getAddress(), to, Transaction.Type.SMART_CONTRACT, "0", "", method, params, 1526316145000L);
+        assertIdentical(expected, transactionTemplate.create(to, "0", 1526316145000L));
+    }
+
+    /**
+     * Deployments have code and no recipient.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void deploymentMatchesCreate() throws Exception {
+        Key key = new Key(PRIVATE_KEY);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(key, Transaction.Type.SMART_CONTRACT, "6060604052", "", "");
+        Transaction expected = Transaction.create(key, key.getAddress(), "", Transaction.Type.SMART_CONTRACT, "0", "6060604052", "", "", 1526316145000L);
+        assertIdentical(expected, transactionTemplate.create("", "0", 1526316145000L));
+    }
+
+    /**
+     * A sender that is not 20 bytes, as an account read from a node may have, is encoded like Transaction.create does.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void senderOfAnyLengthMatchesCreate() throws Exception {
+        Key key = new Key(PRIVATE_KEY);
+        for (String from : new String[]{"", "627306090abab3a6", "627306090abab3a6e1400e9345bc60c78a8bef57627306090abab3a6"}) {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(key, from, Transaction.Type.TRANSFER_TOKENS, "", "", "");
+            Transaction expected = Transaction.create(key, from, "c3be1a3a5c6134cca51896fadf032c4c61bc355e", Transaction.Type.TRANSFER_TOKENS, "1", "", "", "", 1526316145000L);
+            assertIdentical(expected, transactionTemplate.create("c3be1a3a5c6134cca51896fadf032c4c61bc355e", "1", 1526316145000L));
+        }
+    }
+
+    /**
+     * @param expected
+     * @param actual
+     */
+    private static void assertIdentical(Transaction expected, Transaction actual) {
+        assertEquals(expected.getHash(), actual.getHash());
+        assertEquals(expected.getSignature(), actual.getSignature());
+        assertEquals(expected.toString(), actual.toString());
+    }
+}